@@ -0,0 +1,283 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Solve engine that reads every grid line once per direction instead of starting a
+ * new ray at every cell.
+ * <p>
+ * The dictionary is compiled into an Aho-Corasick automaton with the failure links
+ * folded into a dense transition table, so each letter costs one array read however
+ * many words end or overlap there.  Every row, column and diagonal is then scanned
+ * once in each of its two directions, 8 linear passes over the grid in all, and each
+ * word ending at a position is reported with the cell it starts on.  The matches are
+ * the same as the enhanced algorithm's, in a different order.
+ * <p>
+ * Words are numbered in the order they are added, so for a sorted word list the word
+ * ids agree with the dictionaries'.
+ */
+public class AhoCorasickSolver {
+
+    private static final int SYMBOLS = 27;              // 'a' to 'z', then the apostrophe
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final int[] delta;                          // next state: delta[state * SYMBOLS + symbol]
+    private final int[] depth;                          // length of the string a state stands for
+    private final int[] output;                         // longest word that is a suffix of the state's string, or NONE
+    private final int[] nextOutput;                     // for a word state, the next shorter word that is its suffix
+    private final int[] wordIds;                        // word id of each word state
+    private final int maxChars;
+
+    private AhoCorasickSolver(int[] delta, int[] depth, int[] output, int[] nextOutput, int[] wordIds,
+                              int maxChars) {
+        this.delta = delta;
+        this.depth = depth;
+        this.output = output;
+        this.nextOutput = nextOutput;
+        this.wordIds = wordIds;
+        this.maxChars = maxChars;
+    }
+
+    // build from a file with one word per line
+    public static AhoCorasickSolver fromFile(String fileName) throws IOException {
+        WordList words = WordList.read(fileName);
+        Builder builder = new Builder();
+        for (int i = 0; i < words.size(); i++) {
+            builder.add(words.get(i));
+        }
+        return builder.build();
+    }
+
+    public static AhoCorasickSolver fromWords(Iterable<? extends CharSequence> words) {
+        Builder builder = new Builder();
+        for (CharSequence word : words) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    // automaton symbol for c, or NONE if no word contains c
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return c == '\'' ? 26 : NONE;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public int stateCount() {
+        return depth.length;
+    }
+
+    // solve and keep every match
+    public SolveResult solve(WordPuzzle puzzle) {
+        MatchSink.Collector collector = new MatchSink.Collector();
+        SolveResult result = solve(puzzle, collector);
+        return new SolveResult(collector.getMatches(), result.getCount(), result.getElapsedNanos());
+    }
+
+    public SolveResult solve(WordPuzzle puzzle, MatchSink sink) {
+        long startTime = System.nanoTime();
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        char[] chars = new char[Math.max(1, maxChars)];
+        long count = 0;
+
+        for (Direction direction : Direction.values()) {
+            // a line starts on every cell whose previous cell in this direction is off the grid
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
+                    int prevRow = row - direction.dRow;
+                    int prevCol = col - direction.dCol;
+                    if (prevRow < 0 || prevRow >= rows || prevCol < 0 || prevCol >= columns) {
+                        count += scanLine(puzzle, row, col, direction, chars, sink);
+                    }
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(Collections.emptyList(), count, elapsed);
+    }
+
+    // packed grid version: lines are runs of indexes between two border cells
+    public SolveResult solve(PackedGrid grid) {
+        MatchSink.Collector collector = new MatchSink.Collector();
+        SolveResult result = solve(grid, collector);
+        return new SolveResult(collector.getMatches(), result.getCount(), result.getElapsedNanos());
+    }
+
+    public SolveResult solve(PackedGrid grid, MatchSink sink) {
+        long startTime = System.nanoTime();
+        byte[] cells = grid.cells();
+        char[] chars = new char[Math.max(1, maxChars)];
+        long count = 0;
+
+        for (Direction direction : Direction.values()) {
+            int step = grid.step(direction);
+            for (int row = 0; row < grid.getRows(); row++) {
+                for (int col = 0; col < grid.getColumns(); col++) {
+                    int start = grid.index(row, col);
+                    if (cells[start - step] != PackedGrid.BORDER) {
+                        continue;               // not the first cell of its line
+                    }
+                    int state = ROOT;
+                    byte b;
+                    for (int i = start; (b = cells[i]) != PackedGrid.BORDER; i += step) {
+                        int symbol = symbol((char) (b & 0xFF));
+                        state = symbol == NONE ? ROOT : delta[state * SYMBOLS + symbol];
+                        for (int word = output[state]; word != NONE; word = nextOutput[word]) {
+                            int length = depth[word];
+                            int first = i - (length - 1) * step;
+                            for (int k = 0; k < length; k++) {
+                                chars[k] = (char) (cells[first + k * step] & 0xFF);
+                            }
+                            sink.found(chars, length, wordIds[word], grid.rowOf(first), grid.columnOf(first),
+                                    direction);
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(Collections.emptyList(), count, elapsed);
+    }
+
+    // run the automaton along one line, reporting every word that ends on it
+    private long scanLine(WordPuzzle puzzle, int row, int col, Direction direction, char[] chars, MatchSink sink) {
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        long count = 0;
+        int state = ROOT;
+        int t = row;
+        int s = col;
+        while (t >= 0 && t < rows && s >= 0 && s < columns) {
+            int symbol = symbol(puzzle.getChar(t, s));
+            state = symbol == NONE ? ROOT : delta[state * SYMBOLS + symbol];
+
+            for (int word = output[state]; word != NONE; word = nextOutput[word]) {
+                int length = depth[word];
+                int startRow = t - (length - 1) * direction.dRow;
+                int startCol = s - (length - 1) * direction.dCol;
+                for (int i = 0; i < length; i++) {
+                    chars[i] = puzzle.getChar(startRow + i * direction.dRow, startCol + i * direction.dCol);
+                }
+                sink.found(chars, length, wordIds[word], startRow, startCol, direction);
+                count++;
+            }
+            t += direction.dRow;
+            s += direction.dCol;
+        }
+        return count;
+    }
+
+    /**
+     * Builds the keyword trie, then fills in failure transitions breadth first.
+     */
+    private static class Builder {
+        private int[] children = new int[SYMBOLS * 1024];
+        private boolean[] isWord = new boolean[1024];
+        private int[] depth = new int[1024];
+        private int[] wordIds = new int[1024];
+        private int states = 1;
+        private int nextWordId;
+        private int maxChars;
+
+        Builder() {
+            Arrays.fill(children, NONE);
+        }
+
+        void add(CharSequence word) {
+            int state = ROOT;
+            for (int i = 0; i < word.length(); i++) {
+                if (symbol(word.charAt(i)) == NONE) {
+                    nextWordId++;           // can never appear in a grid line, but keeps its id
+                    return;
+                }
+            }
+            for (int i = 0; i < word.length(); i++) {
+                int slot = state * SYMBOLS + symbol(word.charAt(i));
+                if (children[slot] == NONE) {
+                    int child = newState(depth[state] + 1);      // may grow children, so assign after
+                    children[slot] = child;
+                }
+                state = children[slot];
+            }
+            if (state != ROOT && !isWord[state]) {
+                isWord[state] = true;
+                wordIds[state] = nextWordId++;
+                maxChars = Math.max(maxChars, word.length());
+            }
+        }
+
+        private int newState(int stateDepth) {
+            if (states == isWord.length) {
+                int capacity = states * 2;
+                int oldLength = children.length;
+                children = Arrays.copyOf(children, capacity * SYMBOLS);
+                Arrays.fill(children, oldLength, children.length, NONE);
+                isWord = Arrays.copyOf(isWord, capacity);
+                depth = Arrays.copyOf(depth, capacity);
+                wordIds = Arrays.copyOf(wordIds, capacity);
+            }
+            depth[states] = stateDepth;
+            return states++;
+        }
+
+        AhoCorasickSolver build() {
+            int[] delta = Arrays.copyOf(children, states * SYMBOLS);
+            int[] fail = new int[states];
+            int[] output = new int[states];
+            int[] nextOutput = new int[states];
+            int[] queue = new int[states];
+            int head = 0;
+            int tail = 0;
+
+            output[ROOT] = NONE;
+            for (int a = 0; a < SYMBOLS; a++) {
+                int child = delta[a];
+                if (child == NONE) {
+                    delta[a] = ROOT;
+                } else {
+                    fail[child] = ROOT;
+                    output[child] = isWord[child] ? child : NONE;
+                    nextOutput[child] = NONE;
+                    queue[tail++] = child;
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                for (int a = 0; a < SYMBOLS; a++) {
+                    int slot = state * SYMBOLS + a;
+                    int child = delta[slot];
+                    int fallback = delta[fail[state] * SYMBOLS + a];
+                    if (child == NONE) {
+                        delta[slot] = fallback;
+                    } else {
+                        fail[child] = fallback;
+                        output[child] = isWord[child] ? child : output[fallback];
+                        nextOutput[child] = output[fallback];
+                        queue[tail++] = child;
+                    }
+                }
+            }
+            return new AhoCorasickSolver(delta, Arrays.copyOf(depth, states), output, nextOutput,
+                    Arrays.copyOf(wordIds, states), maxChars);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-interactive batch mode: solves many puzzles against one loaded dictionary.
+ * <p>
+ * The main thread produces puzzles, either generated from consecutive seeds or read
+ * from a grid file, and hands them to a fixed set of workers through a bounded queue.
+ * Puzzles are produced only as fast as they are solved and nothing is kept once a
+ * puzzle's line has been printed, so memory stays flat however many puzzles there are.
+ * <pre>
+ *   java BatchSolver [-count 1000] [-seed 1] [-rows 20] [-columns 20] [-grids file]
+ *                    [-threads n] [-queue 64] [-engine snapshot|dawg|table|chars] [-words] [-quiet]
+ *                    [-tally 20]
+ * </pre>
+ * -tally n also counts every word by its dictionary id across the whole batch, one
+ * WordTally per worker merged at the end, and prints the n most frequent words.
+ * A grid file holds one puzzle row per line (spaces between letters are ignored) with
+ * a blank line between puzzles.  A puzzle that can't be read or solved is reported on
+ * stderr with its number and skipped, and the rest of the batch carries on.
+ */
+public class BatchSolver {
+
+    private static final String DICTIONARY = "dictionary.txt";
+    private static final String SNAPSHOT = "dictionary.dawg";
+
+    private int count = 1000;
+    private long seed = 1;
+    private int rows = 20;
+    private int columns = 20;
+    private String gridFile;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueSize = 64;
+    private String engine = "snapshot";
+    private boolean printWords;
+    private boolean quiet;
+    private int tallyTop = -1;                  // words to list from the batch tally, or -1 for no tally
+
+    private final AtomicLong puzzlesSolved = new AtomicLong();
+    private final AtomicLong cellsSolved = new AtomicLong();
+    private final AtomicLong wordsFound = new AtomicLong();
+    private final AtomicLong puzzlesFailed = new AtomicLong();
+
+    // a puzzle waiting in the queue; a null puzzle tells a worker to stop
+    private static class Job {
+        final long number;
+        final WordPuzzle puzzle;
+
+        Job(long number, WordPuzzle puzzle) {
+            this.number = number;
+            this.puzzle = puzzle;
+        }
+    }
+
+    private static final Job STOP = new Job(-1, null);
+
+    public static void main(String[] args) throws Exception {
+        BatchSolver batch = new BatchSolver();
+        batch.parseArgs(args);
+        batch.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-count":
+                    count = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "-columns":
+                    columns = Integer.parseInt(args[++i]);
+                    break;
+                case "-grids":
+                    gridFile = args[++i];
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-queue":
+                    queueSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-engine":
+                    engine = args[++i];
+                    break;
+                case "-words":
+                    printWords = true;
+                    break;
+                case "-quiet":
+                    quiet = true;
+                    break;
+                case "-tally":
+                    tallyTop = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private WordDictionary loadDictionary() throws IOException {
+        switch (engine) {
+            case "snapshot":
+                return MappedDawg.load(DICTIONARY, SNAPSHOT);
+            case "dawg":
+                return Dawg.fromFile(DICTIONARY);
+            case "table":
+                return MyHashTable.makeTable();
+            case "chars":
+                return CharHashTable.fromFile(DICTIONARY);
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+    }
+
+    private void run() throws Exception {
+        long loadStart = System.nanoTime();
+        WordDictionary dictionary = loadDictionary();
+        Solver solver = new Solver(dictionary);
+        System.out.println(String.format(Locale.ROOT, "Dictionary (%s) loaded in %dms",
+                engine, (System.nanoTime() - loadStart) / 1_000_000));
+
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(queueSize);
+        List<Thread> workers = new ArrayList<>();
+        List<WordTally> tallies = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            WordTally tally = tallyTop >= 0 ? new WordTally(dictionary) : null;
+            tallies.add(tally);
+            Thread worker = new Thread(() -> work(solver, queue, tally), "batch-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            if (gridFile != null) {
+                produceFromFile(queue);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    queue.put(new Job(i, new WordPuzzle(rows, columns, seed + i)));
+                }
+            }
+        } finally {
+            // the workers must stop even if producing failed, or the JVM never exits
+            for (int i = 0; i < threads; i++) {
+                queue.put(STOP);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(String.format(Locale.ROOT,
+                "%d puzzles, %d cells, %d words in %.3fs: %.1f puzzles/sec, %.0f cells/sec",
+                puzzlesSolved.get(), cellsSolved.get(), wordsFound.get(), seconds,
+                puzzlesSolved.get() / seconds, cellsSolved.get() / seconds));
+        if (puzzlesFailed.get() > 0) {
+            System.out.println(puzzlesFailed.get() + " puzzles failed");
+        }
+        if (tallyTop >= 0) {
+            printTally(tallies);
+        }
+    }
+
+    // merge the workers' tallies; words are only looked up by id here, for printing
+    private void printTally(List<WordTally> tallies) {
+        WordTally total = tallies.get(0);
+        for (int i = 1; i < tallies.size(); i++) {
+            total.merge(tallies.get(i));
+        }
+        System.out.println(total.distinctCount() + " distinct words");
+        for (int wordId : total.mostFrequent(tallyTop)) {
+            System.out.println(String.format(Locale.ROOT, "%10d  %s",
+                    total.count(wordId), total.getDictionary().word(wordId)));
+        }
+    }
+
+    // read puzzles separated by blank lines, queueing each as soon as it is complete
+    private void produceFromFile(BlockingQueue<Job> queue) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(gridFile), StandardCharsets.UTF_8)) {
+            List<char[]> grid = new ArrayList<>();
+            long number = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String letters = line.replaceAll("\\s", "");
+                if (!letters.isEmpty()) {
+                    grid.add(letters.toCharArray());
+                } else if (!grid.isEmpty()) {
+                    queuePuzzle(queue, number++, grid);
+                    grid = new ArrayList<>();
+                }
+            }
+            if (!grid.isEmpty()) {
+                queuePuzzle(queue, number, grid);
+            }
+        }
+    }
+
+    // a grid that isn't a puzzle, e.g. with rows of different lengths, is reported and skipped
+    private void queuePuzzle(BlockingQueue<Job> queue, long number, List<char[]> grid) throws InterruptedException {
+        WordPuzzle puzzle;
+        try {
+            puzzle = new WordPuzzle(grid.toArray(new char[0][]));
+        } catch (IllegalArgumentException e) {
+            failed(number, e);
+            return;
+        }
+        queue.put(new Job(number, puzzle));
+    }
+
+    private void failed(long number, RuntimeException e) {
+        puzzlesFailed.incrementAndGet();
+        System.err.println("puzzle " + number + ": " + e.getMessage());
+    }
+
+    // tally, if not null, is this worker's own
+    private void work(Solver solver, BlockingQueue<Job> queue, WordTally tally) {
+        try {
+            Job job;
+            while ((job = queue.take()) != STOP) {
+                WordPuzzle puzzle = job.puzzle;
+                SolveResult result;
+                try {
+                    if (printWords) {
+                        result = solver.solve(puzzle);
+                        if (tally != null) {
+                            for (Match match : result.getMatches()) {
+                                tally.add(match.getWordId());
+                            }
+                        }
+                    } else {
+                        result = solver.solve(puzzle, tally != null ? tally : new MatchSink.Counter());
+                    }
+                } catch (RuntimeException e) {
+                    failed(job.number, e);      // keep this worker taking puzzles, or the queue would fill up
+                    continue;
+                }
+
+                puzzlesSolved.incrementAndGet();
+                cellsSolved.addAndGet((long) puzzle.getRows() * puzzle.getColumns());
+                wordsFound.addAndGet(result.getCount());
+                if (!quiet) {
+                    report(job.number, puzzle, result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // one line per puzzle, written in a single call so lines from different workers don't mix
+    private void report(long number, WordPuzzle puzzle, SolveResult result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "puzzle %d: %dx%d, %d words, %.3fms",
+                number, puzzle.getRows(), puzzle.getColumns(), result.getCount(), result.getElapsedNanos() / 1e6));
+        if (printWords) {
+            sb.append(':');
+            for (Match match : result.getMatches()) {
+                sb.append(' ').append(match.getWord());
+            }
+        }
+        System.out.println(sb);
+    }
+}
@@ -0,0 +1,470 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Linear-probing hash set specialized for character strings.
+ * <p>
+ * Where MyHashTable keeps a HashEntry object per slot, this table keeps the key
+ * characters in one shared char[] arena and describes each slot with parallel
+ * primitive arrays: arena offset, key length, cached hash code and a flag byte.
+ * A probe compares cached hashes before touching any characters, rehashing never
+ * recomputes a hash, and keys can be looked up from any CharSequence or char[] range
+ * without building a String.  When whole words are added with addWord(), every prefix
+ * entry points into the word's own characters, so each word is stored in the arena once.
+ * <p>
+ * addWord() numbers words in the order they are added, so a table read with fromFile()
+ * gives each word its line number in the file.  A word taken out with removeWord() stays
+ * as a prefix, keeps its id and gets it back if it is added again.  remove() drops the
+ * key itself, id and all, so a word added again after remove() gets a new id.
+ * <p>
+ * Like MyHashTable, the load factor is kept at or below 1/2 and removal is lazy.
+ */
+public class CharHashTable implements WordDictionary {
+
+    private static final int DEFAULT_TABLE_SIZE = 128;
+
+    // slot flags
+    private static final byte USED = 1;         // slot has held a key (stays set after removal, for probing)
+    private static final byte ACTIVE = 2;       // key is present
+    private static final byte IS_WORD = 4;      // key is a whole word, not just a prefix
+
+    private char[] arena = new char[1024];      // characters of all keys
+    private int arenaSize;
+
+    private int[] offsets;                      // where each slot's key starts in the arena
+    private int[] lengths;                      // key length
+    private int[] hashes;                       // cached hash code of the key
+    private byte[] flags;
+    private int[] ids;                          // word id of each slot, or NO_WORD
+    private int mask;                           // capacity - 1; capacity is a power of two
+
+    private int occupied;                       // slots with USED set
+    private int theSize;                        // slots with ACTIVE set
+    private int maxChars;
+
+    private int[] wordOffsets = new int[64];    // arena start of each word, by id
+    private int[] wordLengths = new int[64];
+    private int wordIds;                        // ids handed out so far
+
+    public CharHashTable() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    // table sized to hold about expected keys without rehashing
+    public CharHashTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        allocateArrays(capacity);
+    }
+
+    private void allocateArrays(int capacity) {
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        hashes = new int[capacity];
+        flags = new byte[capacity];
+        ids = new int[capacity];
+        Arrays.fill(ids, NO_WORD);
+        mask = capacity - 1;
+    }
+
+    // independent copy; changes to either table don't show in the other
+    public CharHashTable copy() {
+        CharHashTable table = new CharHashTable(4);
+        table.arena = Arrays.copyOf(arena, Math.max(arenaSize, 1));
+        table.arenaSize = arenaSize;
+        table.offsets = offsets.clone();
+        table.lengths = lengths.clone();
+        table.hashes = hashes.clone();
+        table.flags = flags.clone();
+        table.ids = ids.clone();
+        table.mask = mask;
+        table.occupied = occupied;
+        table.theSize = theSize;
+        table.maxChars = maxChars;
+        table.wordOffsets = wordOffsets.clone();
+        table.wordLengths = wordLengths.clone();
+        table.wordIds = wordIds;
+        return table;
+    }
+
+    // build from a file with one word per line, inserting every prefix of every word
+    public static CharHashTable fromFile(String fileName) throws IOException {
+        WordList words = WordList.read(fileName);
+        CharHashTable table = new CharHashTable(1 << 18);
+        for (int i = 0; i < words.size(); i++) {
+            table.addWord(words.get(i), words.commonPrefix(i));
+        }
+        return table;
+    }
+
+    // String.hashCode() of chars[off, off + len), so the value can also be built one character at a time
+    public static int hash(char[] chars, int off, int len) {
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + chars[off + i];
+        }
+        return h;
+    }
+
+    public static int hash(CharSequence s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    // spread the bits of a String-style hash, which are weak in the low bits for short keys
+    private int home(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+
+    // slot holding chars[off, off + len), or the empty slot where it would go
+    private int findPos(char[] chars, int off, int len, int h) {
+        int currentPos = home(h);
+        int probes = 1;
+        while (flags[currentPos] != 0 && !sameKey(currentPos, chars, off, len, h)) {
+            currentPos = (currentPos + 1) & mask;
+            probes++;
+        }
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.probe(probes);
+        }
+        return currentPos;
+    }
+
+    private int findPos(CharSequence s, int h) {
+        return findPrefixPos(s, s.length(), h);
+    }
+
+    private boolean sameKey(int pos, char[] chars, int off, int len, int h) {
+        if (hashes[pos] != h || lengths[pos] != len) {
+            return false;
+        }
+        int start = offsets[pos];
+        for (int i = 0; i < len; i++) {
+            if (arena[start + i] != chars[off + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // copy chars into the arena, returning where they start
+    private int store(CharSequence s) {
+        int len = s.length();
+        if (arenaSize + len > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + len));
+        }
+        int start = arenaSize;
+        for (int i = 0; i < len; i++) {
+            arena[start + i] = s.charAt(i);
+        }
+        arenaSize += len;
+        return start;
+    }
+
+    // put a key known to be absent into slot currentPos
+    private void place(int currentPos, int offset, int len, int h, byte flag) {
+        if (flags[currentPos] == 0) {
+            ++occupied;
+        }
+        offsets[currentPos] = offset;
+        lengths[currentPos] = len;
+        hashes[currentPos] = h;
+        flags[currentPos] = (byte) (USED | ACTIVE | flag);
+        ids[currentPos] = NO_WORD;
+        theSize++;
+        if (len > maxChars) {
+            maxChars = len;
+        }
+    }
+
+    // insert s as a plain key; returns false if it was already present
+    public boolean insert(CharSequence s) {
+        int h = hash(s);
+        int currentPos = findPos(s, h);
+        if (isActive(currentPos)) {
+            return false;
+        }
+        place(currentPos, store(s), s.length(), h, (byte) 0);
+        rehashIfFull();
+        return true;
+    }
+
+    /**
+     * Insert word and all of its prefixes, marking the last as a whole word.
+     * Returns false if the word was already present as a word.
+     */
+    public boolean addWord(CharSequence word) {
+        return addWord(word, 0);
+    }
+
+    /**
+     * addWord() for when the first common characters of word are known to be in the table
+     * already, as they are when words come in sorted order and common is the length of the
+     * prefix shared with the word before.  Those prefixes are hashed but not looked up.
+     */
+    public boolean addWord(CharSequence word, int common) {
+        int len = word.length();
+        int offset = -1;                        // arena copy of word, stored on first need
+        int h = 0;
+        int currentPos = -1;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + word.charAt(i);
+            if (i < common && i < len - 1) {
+                continue;
+            }
+            currentPos = findPrefixPos(word, i + 1, h);
+            if (!isActive(currentPos)) {
+                if (offset < 0) {
+                    offset = store(word);
+                }
+                place(currentPos, offset, i + 1, h, (byte) 0);
+                if (rehashIfFull()) {
+                    currentPos = findPrefixPos(word, i + 1, h);
+                }
+            }
+        }
+        if (len == 0 || (flags[currentPos] & IS_WORD) != 0) {
+            return false;
+        }
+        flags[currentPos] |= IS_WORD;
+        if (ids[currentPos] == NO_WORD) {
+            ids[currentPos] = newWordId(offsets[currentPos], len);
+        }
+        return true;
+    }
+
+    private int newWordId(int offset, int len) {
+        if (wordIds == wordOffsets.length) {
+            wordOffsets = Arrays.copyOf(wordOffsets, wordIds * 2);
+            wordLengths = Arrays.copyOf(wordLengths, wordIds * 2);
+        }
+        wordOffsets[wordIds] = offset;
+        wordLengths[wordIds] = len;
+        return wordIds++;
+    }
+
+    // slot for the first len characters of s
+    private int findPrefixPos(CharSequence s, int len, int h) {
+        int currentPos = home(h);
+        int probes = 1;
+        while (flags[currentPos] != 0) {
+            if (hashes[currentPos] == h && lengths[currentPos] == len) {
+                int start = offsets[currentPos];
+                int i = 0;
+                while (i < len && arena[start + i] == s.charAt(i)) {
+                    i++;
+                }
+                if (i == len) {
+                    break;
+                }
+            }
+            currentPos = (currentPos + 1) & mask;
+            probes++;
+        }
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.probe(probes);
+        }
+        return currentPos;
+    }
+
+    // lazily remove the key s, dropping its word id; for dictionary words use removeWord(), which keeps both
+    public boolean remove(CharSequence s) {
+        int currentPos = findPos(s, hash(s));
+        if (isActive(currentPos)) {
+            flags[currentPos] = USED;           // mark as deleted, keep the probe chain intact
+            theSize--;
+            return true;
+        }
+        return false;
+    }
+
+    // stop treating word as a whole word; it stays a prefix, as longer words may still need it
+    public boolean removeWord(CharSequence word) {
+        int currentPos = findPos(word, hash(word));
+        if ((flags[currentPos] & (ACTIVE | IS_WORD)) == (ACTIVE | IS_WORD)) {
+            flags[currentPos] &= ~IS_WORD;
+            return true;
+        }
+        return false;
+    }
+
+    // returns true if the table was rebuilt
+    private boolean rehashIfFull() {
+        if (occupied <= flags.length / 2) {     // testing if # occupied cells exceeds 1/2 array size
+            return false;
+        }
+        rehash();
+        return true;
+    }
+
+    // rebuild at double size from the cached hashes; deleted slots are not copied
+    private void rehash() {
+        long startTime = System.nanoTime();
+        int[] oldOffsets = offsets;
+        int[] oldLengths = lengths;
+        int[] oldHashes = hashes;
+        byte[] oldFlags = flags;
+        int[] oldIds = ids;
+
+        allocateArrays(oldFlags.length * 2);
+        occupied = 0;
+        for (int i = 0; i < oldFlags.length; i++) {
+            if ((oldFlags[i] & ACTIVE) != 0) {
+                int currentPos = home(oldHashes[i]);
+                while (flags[currentPos] != 0) {
+                    currentPos = (currentPos + 1) & mask;
+                }
+                offsets[currentPos] = oldOffsets[i];
+                lengths[currentPos] = oldLengths[i];
+                hashes[currentPos] = oldHashes[i];
+                flags[currentPos] = oldFlags[i];
+                ids[currentPos] = oldIds[i];
+                occupied++;
+            }
+        }
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.rehash("CharHashTable", System.nanoTime() - startTime, occupied, theSize, flags.length);
+        }
+    }
+
+    private boolean isActive(int currentPos) {
+        return (flags[currentPos] & ACTIVE) != 0;
+    }
+
+    public boolean contains(CharSequence s) {
+        return isActive(findPos(s, hash(s)));
+    }
+
+    public boolean contains(char[] chars, int off, int len) {
+        return isActive(findPos(chars, off, len, hash(chars, off, len)));
+    }
+
+    @Override
+    public boolean isPrefix(CharSequence s) {
+        return contains(s);
+    }
+
+    @Override
+    public boolean isWord(CharSequence s) {
+        return (flags[findPos(s, hash(s))] & (ACTIVE | IS_WORD)) == (ACTIVE | IS_WORD);
+    }
+
+    public boolean isWord(char[] chars, int off, int len) {
+        return (flags[findPos(chars, off, len, hash(chars, off, len))] & (ACTIVE | IS_WORD)) == (ACTIVE | IS_WORD);
+    }
+
+    @Override
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    @Override
+    public int wordId(CharSequence s) {
+        int currentPos = findPos(s, hash(s));
+        return (flags[currentPos] & (ACTIVE | IS_WORD)) == (ACTIVE | IS_WORD) ? ids[currentPos] : NO_WORD;
+    }
+
+    @Override
+    public String word(int wordId) {
+        if (wordId < 0 || wordId >= wordIds) {
+            throw new IndexOutOfBoundsException("No word with id " + wordId);
+        }
+        return new String(arena, wordOffsets[wordId], wordLengths[wordId]);
+    }
+
+    @Override
+    public int wordIdCount() {
+        return wordIds;
+    }
+
+    @Override
+    public WordDictionary.Cursor cursor() {
+        return new Cursor();
+    }
+
+    public int size() {
+        return theSize;
+    }
+
+    public int capacity() {
+        return flags.length;
+    }
+
+    // approximate heap footprint of the arrays, in bytes
+    public long sizeInBytes() {
+        return 2L * arena.length + 17L * flags.length + 8L * wordOffsets.length;
+    }
+
+    /**
+     * Cursor keeping the characters seen so far and their running hash, so each
+     * advance() is one probe of the table.
+     */
+    private class Cursor implements WordDictionary.Cursor {
+        private char[] chars = new char[Math.max(1, maxChars)];
+        private int length;
+        private int hash;
+        private int wordId = NO_WORD;
+        private boolean dead = true;
+
+        @Override
+        public void start() {
+            length = 0;
+            hash = 0;
+            wordId = NO_WORD;
+            dead = false;
+        }
+
+        @Override
+        public int advance(char c) {
+            wordId = NO_WORD;
+            if (dead || length == maxChars) {
+                dead = true;
+                return NOT_PREFIX;
+            }
+            if (length == chars.length) {       // table grew since this cursor was made
+                chars = Arrays.copyOf(chars, maxChars);
+            }
+            chars[length] = c;
+            int newHash = 31 * hash + c;
+            int currentPos = findPos(chars, 0, length + 1, newHash);
+            int flag = flags[currentPos];
+            if ((flag & ACTIVE) == 0) {
+                dead = true;
+                return NOT_PREFIX;
+            }
+            length++;
+            hash = newHash;
+            if ((flag & IS_WORD) == 0) {
+                return PREFIX;
+            }
+            wordId = ids[currentPos];
+            return WORD;
+        }
+
+        @Override
+        public void reset() {
+            length = 0;
+            hash = 0;
+            wordId = NO_WORD;
+            dead = true;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public int wordId() {
+            return wordId;
+        }
+    }
+}
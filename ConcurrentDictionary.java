@@ -0,0 +1,119 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Dictionary that can take new words and retire old ones while solves are running.
+ * <p>
+ * Readers never lock.  The words live in a CharHashTable that is never changed once
+ * published; snapshot() is a single volatile read of the current one.  Writers take a
+ * lock, copy the current table, apply their changes to the copy and publish it with
+ * one volatile write, so a reader sees either all of a change or none of it, and a
+ * solve run against one snapshot sees one consistent dictionary from start to end.
+ * Later snapshots see the change; nothing already running is paused or disturbed.
+ * <p>
+ * Each write copies the whole table, so batch changes with addWords()/removeWords()
+ * when there are many.  current() gives a table together with its version number;
+ * ConcurrentDictionaryStress checks all of this under concurrent readers and writers.
+ */
+public class ConcurrentDictionary {
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot current;
+
+    // a published table and its version number
+    public static class Snapshot {
+        private final CharHashTable table;
+        private final long version;
+
+        Snapshot(CharHashTable table, long version) {
+            this.table = table;
+            this.version = version;
+        }
+
+        public WordDictionary getDictionary() {
+            return table;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    public ConcurrentDictionary(CharHashTable initial) {
+        current = new Snapshot(initial.copy(), 0);
+    }
+
+    public static ConcurrentDictionary fromFile(String fileName) throws IOException {
+        return new ConcurrentDictionary(CharHashTable.fromFile(fileName));
+    }
+
+    /**
+     * The dictionary as it is now.  It never changes afterwards, so pass the same
+     * snapshot to everything that takes part in one solve.
+     */
+    public WordDictionary snapshot() {
+        return current.table;
+    }
+
+    // bumped by every published change
+    public long getVersion() {
+        return current.version;
+    }
+
+    /**
+     * The dictionary as it is now together with its version, from one volatile read;
+     * snapshot() and getVersion() called one after the other may straddle a change.
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    public boolean addWord(CharSequence word) {
+        return addWords(Collections.singleton(word)) > 0;
+    }
+
+    public boolean removeWord(CharSequence word) {
+        return removeWords(Collections.singleton(word)) > 0;
+    }
+
+    // add words in one published change; returns how many were new
+    public int addWords(Collection<? extends CharSequence> words) {
+        synchronized (writeLock) {
+            CharHashTable table = current.table.copy();
+            int changed = 0;
+            for (CharSequence word : words) {
+                if (table.addWord(word)) {
+                    changed++;
+                }
+            }
+            publish(table, changed);
+            return changed;
+        }
+    }
+
+    // retire words in one published change; they remain valid prefixes of longer words
+    public int removeWords(Collection<? extends CharSequence> words) {
+        synchronized (writeLock) {
+            CharHashTable table = current.table.copy();
+            int changed = 0;
+            for (CharSequence word : words) {
+                if (table.removeWord(word)) {
+                    changed++;
+                }
+            }
+            publish(table, changed);
+            return changed;
+        }
+    }
+
+    // callers hold writeLock
+    private void publish(CharHashTable table, int changed) {
+        if (changed > 0) {
+            current = new Snapshot(table, current.version + 1);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress run for ConcurrentDictionary: writer threads publish changes while reader
+ * threads take snapshots and check that each one is consistent.
+ * <p>
+ * Writer w adds groups of made-up words "qzw" + w + "g" + k + "x" + letter, k counting
+ * up, in one addWords() call per group, and retires each group again two groups
+ * later with one removeWords() call.  Retired words stay in the table as prefixes, so
+ * a snapshot shows every group a writer has ever added and which of those it removed.
+ * For every snapshot a reader checks that
+ * <ul>
+ *   <li>each group's words are all there or all missing, and all words or all retired,
+ *       so no change was seen half applied;</li>
+ *   <li>each writer's added and removed groups run 0, 1, 2... without gaps, in the
+ *       order the writer published them;</li>
+ *   <li>the snapshot's version is the number of changes its table shows, so the two
+ *       were read together;</li>
+ *   <li>versions never go backwards from one snapshot to the next.</li>
+ * </ul>
+ * <pre>
+ *   java ConcurrentDictionaryStress [-readers 4] [-writers 2] [-seconds 5] [-groupSize 3]
+ * </pre>
+ * Exits with status 1 after printing the first problems found.
+ */
+public class ConcurrentDictionaryStress {
+
+    private static final int MAX_REPORTED = 10;
+    private static final int REMOVE_AFTER = 2;          // groups added before a writer's oldest is removed
+
+    private int readers = 4;
+    private int writers = 2;
+    private long seconds = 5;
+    private int groupSize = 3;
+
+    private final AtomicLong snapshotsChecked = new AtomicLong();
+    private final List<String> problems = new ArrayList<>();       // guarded by itself
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        ConcurrentDictionaryStress stress = new ConcurrentDictionaryStress();
+        stress.parseArgs(args);
+        System.exit(stress.run() ? 0 : 1);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-readers":
+                    readers = Integer.parseInt(args[++i]);
+                    break;
+                case "-writers":
+                    writers = Integer.parseInt(args[++i]);
+                    break;
+                case "-seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "-groupSize":
+                    groupSize = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (groupSize < 1 || groupSize > 26) {
+            throw new IllegalArgumentException("Group size must be 1 to 26");
+        }
+    }
+
+    private boolean run() throws Exception {
+        ConcurrentDictionary dictionary = ConcurrentDictionary.fromFile("dictionary.txt");
+        long[] changes = new long[writers];
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> changes[writer] = write(dictionary, writer), "stress-writer-" + w));
+        }
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> read(dictionary), "stress-reader-" + r));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(seconds * 1000);
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // once everything has stopped, the last snapshot must show every change
+        long published = 0;
+        for (long count : changes) {
+            published += count;
+        }
+        ConcurrentDictionary.Snapshot last = dictionary.current();
+        check(last, -1);
+        if (last.getVersion() != published) {
+            problem("final version " + last.getVersion() + " but " + published + " changes were published");
+        }
+
+        System.out.println(String.format(Locale.ROOT,
+                "%d changes by %d writers, %d snapshots checked by %d readers in %ds, %d problems",
+                published, writers, snapshotsChecked.get(), readers, seconds, problems.size()));
+        synchronized (problems) {
+            for (String problem : problems.subList(0, Math.min(MAX_REPORTED, problems.size()))) {
+                System.out.println("  " + problem);
+            }
+            return problems.isEmpty();
+        }
+    }
+
+    // add and retire groups until stopped; returns the number of changes published
+    private long write(ConcurrentDictionary dictionary, int writer) {
+        long changes = 0;
+        for (int k = 0; running; k++) {
+            if (dictionary.addWords(group(writer, k)) != groupSize) {
+                problem("writer " + writer + " group " + k + " was not wholly new");
+            }
+            changes++;
+            if (k >= REMOVE_AFTER) {
+                if (dictionary.removeWords(group(writer, k - REMOVE_AFTER)) != groupSize) {
+                    problem("writer " + writer + " group " + (k - REMOVE_AFTER) + " was not wholly there");
+                }
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private void read(ConcurrentDictionary dictionary) {
+        long lastVersion = -1;
+        while (running) {
+            ConcurrentDictionary.Snapshot snapshot = dictionary.current();
+            check(snapshot, lastVersion);
+            lastVersion = snapshot.getVersion();
+            snapshotsChecked.incrementAndGet();
+        }
+    }
+
+    // check one snapshot; lastVersion is the version this reader saw before, or -1
+    private void check(ConcurrentDictionary.Snapshot snapshot, long lastVersion) {
+        WordDictionary words = snapshot.getDictionary();
+        long version = snapshot.getVersion();
+        if (version < lastVersion) {
+            problem("version went back from " + lastVersion + " to " + version);
+        }
+        long shown = 0;
+        for (int w = 0; w < writers; w++) {
+            int added = 0;
+            int removed = 0;
+            boolean ended = false;
+            for (int k = 0; !ended; k++) {
+                List<String> group = group(w, k);
+                int present = 0;
+                int live = 0;
+                for (String word : group) {
+                    if (words.isPrefix(word)) {
+                        present++;
+                        if (words.isWord(word)) {
+                            live++;
+                        }
+                    }
+                }
+                if ((present != 0 && present != groupSize) || (live != 0 && live != present)) {
+                    problem("version " + version + ": writer " + w + " group " + k + " half applied, "
+                            + present + " present, " + live + " words");
+                }
+                if (present == 0) {
+                    ended = true;
+                } else {
+                    added++;
+                    if (live == 0) {
+                        if (removed != k) {
+                            problem("version " + version + ": writer " + w + " group " + k + " removed out of order");
+                        }
+                        removed++;
+                    }
+                }
+            }
+            if (removed > Math.max(0, added - REMOVE_AFTER)) {
+                problem("version " + version + ": writer " + w + " removed " + removed + " of " + added + " groups");
+            }
+            shown += added + removed;
+        }
+        if (shown != version) {
+            problem("version " + version + " paired with a table showing " + shown + " changes");
+        }
+    }
+
+    // the words of writer's group k
+    private List<String> group(int writer, int k) {
+        List<String> group = new ArrayList<>(groupSize);
+        for (int i = 0; i < groupSize; i++) {
+            group.add("qzw" + writer + "g" + k + "x" + (char) ('a' + i));
+        }
+        return group;
+    }
+
+    private void problem(String problem) {
+        synchronized (problems) {
+            problems.add(problem);
+        }
+    }
+}
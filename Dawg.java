@@ -0,0 +1,361 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Minimized DAWG (directed acyclic word graph) built from a sorted word list.
+ * <p>
+ * Shared prefixes and shared suffixes are stored once, and the graph is frozen into
+ * plain int/char arrays: the edges leaving node n are edgeLabel/edgeTarget in
+ * [edgeStart[n], edgeStart[n + 1]), sorted by label.  Lookups walk one character at
+ * a time through {@link #child(int, char)}, so no Strings are created.
+ * <p>
+ * Each edge also records how many words sort before the words it leads to, among
+ * those reachable from its node.  Adding these up along a word's path gives the
+ * word's position in the sorted list, which is its word id, and word(id) walks the
+ * same numbers back down (a minimal perfect hash).
+ */
+public class Dawg implements WordGraph {
+
+    private final int[] edgeStart;          // first edge of each node, plus one end marker
+    private final char[] edgeLabel;         // character on each edge
+    private final int[] edgeTarget;         // node each edge leads to
+    private final int[] edgeRank;           // words from the edge's node that sort before the edge's words
+    private final long[] terminal;          // bit set of nodes that end a word
+    private final int wordCount;
+    private final int maxChars;
+
+    private Dawg(int[] edgeStart, char[] edgeLabel, int[] edgeTarget, int[] edgeRank, long[] terminal,
+                 int wordCount, int maxChars) {
+        this.edgeStart = edgeStart;
+        this.edgeLabel = edgeLabel;
+        this.edgeTarget = edgeTarget;
+        this.edgeRank = edgeRank;
+        this.terminal = terminal;
+        this.wordCount = wordCount;
+        this.maxChars = maxChars;
+    }
+
+    // build from a file with one word per line, sorted in ascending order
+    public static Dawg fromFile(String fileName) throws IOException {
+        WordList words = WordList.read(fileName);
+        Builder builder = new Builder();
+        for (int i = 0; i < words.size(); i++) {
+            builder.add(words.get(i));
+        }
+        return builder.build();
+    }
+
+    // build from words given in ascending order
+    public static Dawg fromWords(Iterable<? extends CharSequence> words) {
+        Builder builder = new Builder();
+        for (CharSequence word : words) {
+            builder.add(word.toString());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int edge(int node, char c) {
+        int end = edgeStart[node + 1];
+        for (int e = edgeStart[node]; e < end; e++) {
+            char label = edgeLabel[e];
+            if (label == c) {
+                return e;
+            }
+            if (label > c) {            // labels are sorted
+                break;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int edgeEnd(int node) {
+        return edgeStart[node + 1];
+    }
+
+    @Override
+    public char label(int edge) {
+        return edgeLabel[edge];
+    }
+
+    @Override
+    public int target(int edge) {
+        return edgeTarget[edge];
+    }
+
+    @Override
+    public int rank(int edge) {
+        return edgeRank[edge];
+    }
+
+    @Override
+    public boolean isWordNode(int node) {
+        return (terminal[node >>> 6] & (1L << node)) != 0;
+    }
+
+    @Override
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    @Override
+    public int wordIdCount() {
+        return wordCount;
+    }
+
+    public int wordCount() {
+        return wordCount;
+    }
+
+    public int nodeCount() {
+        return edgeStart.length - 1;
+    }
+
+    public int edgeCount() {
+        return edgeLabel.length;
+    }
+
+    /*
+     * True if other holds exactly the same words.  The minimal DAWG of a word set is
+     * unique, and build() numbers its nodes breadth first with edges in label order, so
+     * equal word sets always give equal arrays.
+     */
+    boolean sameWords(Dawg other) {
+        return Arrays.equals(edgeStart, other.edgeStart) && Arrays.equals(edgeLabel, other.edgeLabel)
+                && Arrays.equals(edgeTarget, other.edgeTarget) && Arrays.equals(terminal, other.terminal);
+    }
+
+    // approximate heap footprint of the frozen arrays, in bytes
+    public long sizeInBytes() {
+        return 4L * edgeStart.length + 2L * edgeLabel.length + 4L * edgeTarget.length + 4L * edgeRank.length
+                + 8L * terminal.length;
+    }
+
+    // write the frozen arrays in the snapshot layout read by MappedDawg
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(wordCount);
+        out.writeInt(maxChars);
+        out.writeInt(nodeCount());
+        out.writeInt(edgeCount());
+        for (int start : edgeStart) {
+            out.writeInt(start);
+        }
+        for (int target : edgeTarget) {
+            out.writeInt(target);
+        }
+        for (int rank : edgeRank) {
+            out.writeInt(rank);
+        }
+        for (char label : edgeLabel) {
+            out.writeChar(label);
+        }
+        for (long bits : terminal) {
+            out.writeLong(bits);
+        }
+    }
+
+    /**
+     * Incremental construction from sorted input (Daciuk, Mihov, Watson and Watson, 2000).
+     * Once a word has been added, the part of the previous word past their common prefix
+     * can never change again, so those nodes are merged with an equivalent registered
+     * node right away.  Only the path of the last word is ever left unminimized.
+     */
+    private static class Builder {
+
+        private final Node root = new Node();
+        private final HashMap<Node, Node> register = new HashMap<>();
+        private final List<Node> path = new ArrayList<>();     // nodes along the previous word
+        private String previous = "";
+        private int wordCount;
+        private int maxChars;
+
+        Builder() {
+            path.add(root);
+        }
+
+        void add(String word) {
+            int cmp = word.compareTo(previous);
+            if (cmp == 0 && wordCount > 0) {
+                return;                                         // duplicate line
+            }
+            if (cmp < 0) {
+                throw new IllegalArgumentException("Words are not sorted: \"" + word + "\" after \"" + previous + "\"");
+            }
+
+            int common = 0;
+            int limit = Math.min(word.length(), previous.length());
+            while (common < limit && word.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            minimize(common);
+
+            Node node = path.get(common);
+            for (int i = common; i < word.length(); i++) {
+                Node next = new Node();
+                node.addEdge(word.charAt(i), next);
+                path.add(next);
+                node = next;
+            }
+            node.isWord = true;
+
+            previous = word;
+            wordCount++;
+            if (word.length() > maxChars) {
+                maxChars = word.length();
+            }
+        }
+
+        // replace path nodes below depth with registered equivalents
+        private void minimize(int depth) {
+            for (int i = path.size() - 1; i > depth; i--) {
+                Node child = path.remove(i);
+                child.freeze();
+                Node existing = register.get(child);
+                if (existing != null) {
+                    path.get(i - 1).replaceLastChild(existing);
+                } else {
+                    register.put(child, child);
+                }
+            }
+        }
+
+        Dawg build() {
+            minimize(0);
+
+            // number the nodes breadth first so the root is 0
+            IdentityHashMap<Node, Integer> ids = new IdentityHashMap<>();
+            List<Node> order = new ArrayList<>();
+            ids.put(root, 0);
+            order.add(root);
+            int edges = 0;
+            for (int i = 0; i < order.size(); i++) {
+                Node node = order.get(i);
+                edges += node.size;
+                for (int e = 0; e < node.size; e++) {
+                    Node child = node.children[e];
+                    if (!ids.containsKey(child)) {
+                        ids.put(child, order.size());
+                        order.add(child);
+                    }
+                }
+            }
+
+            int[] edgeStart = new int[order.size() + 1];
+            char[] edgeLabel = new char[edges];
+            int[] edgeTarget = new int[edges];
+            long[] terminal = new long[(order.size() + 63) >>> 6];
+            int e = 0;
+            for (int n = 0; n < order.size(); n++) {
+                Node node = order.get(n);
+                edgeStart[n] = e;
+                if (node.isWord) {
+                    terminal[n >>> 6] |= 1L << n;
+                }
+                for (int k = 0; k < node.size; k++) {
+                    edgeLabel[e] = node.labels[k];
+                    edgeTarget[e] = ids.get(node.children[k]);
+                    e++;
+                }
+            }
+            edgeStart[order.size()] = e;
+
+            // words reachable from each node, children before parents
+            int[] words = new int[order.size()];
+            Arrays.fill(words, -1);
+            for (int n = order.size() - 1; n >= 0; n--) {
+                countWords(n, edgeStart, edgeTarget, terminal, words);
+            }
+            int[] edgeRank = new int[edges];
+            for (int n = 0; n < order.size(); n++) {
+                int rank = (terminal[n >>> 6] & (1L << n)) != 0 ? 1 : 0;       // the node's own word sorts first
+                for (e = edgeStart[n]; e < edgeStart[n + 1]; e++) {
+                    edgeRank[e] = rank;
+                    rank += words[edgeTarget[e]];
+                }
+            }
+
+            return new Dawg(edgeStart, edgeLabel, edgeTarget, edgeRank, terminal, wordCount, maxChars);
+        }
+
+        // fill in words[n]; recursion is no deeper than the longest word
+        private static int countWords(int n, int[] edgeStart, int[] edgeTarget, long[] terminal, int[] words) {
+            if (words[n] < 0) {
+                int count = (terminal[n >>> 6] & (1L << n)) != 0 ? 1 : 0;
+                for (int e = edgeStart[n]; e < edgeStart[n + 1]; e++) {
+                    count += countWords(edgeTarget[e], edgeStart, edgeTarget, terminal, words);
+                }
+                words[n] = count;
+            }
+            return words[n];
+        }
+    }
+
+    // mutable node used only while building; compared by value once frozen
+    private static class Node {
+        boolean isWord;
+        char[] labels = new char[2];
+        Node[] children = new Node[2];
+        int size;
+        private int hash;
+
+        void addEdge(char c, Node child) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, size * 2);
+                children = Arrays.copyOf(children, size * 2);
+            }
+            labels[size] = c;
+            children[size] = child;
+            size++;
+        }
+
+        void replaceLastChild(Node child) {
+            children[size - 1] = child;
+        }
+
+        // children are already minimized, so identity is enough to compare them
+        void freeze() {
+            int h = isWord ? 1 : 0;
+            for (int i = 0; i < size; i++) {
+                h = 31 * h + labels[i];
+                h = 31 * h + System.identityHashCode(children[i]);
+            }
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node other = (Node) o;
+            if (isWord != other.isWord || size != other.size || hash != other.hash) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (labels[i] != other.labels[i] || children[i] != other.children[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
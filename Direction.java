@@ -0,0 +1,27 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+// the eight straight-line scan directions, in the order the algorithms try them
+public enum Direction {
+    LEFT_TO_RIGHT(0, 1),
+    RIGHT_TO_LEFT(0, -1),
+    TOP_DOWN(1, 0),
+    BOTTOM_UP(-1, 0),
+    BOTTOM_RIGHT(1, 1),
+    TOP_LEFT(-1, -1),
+    TOP_RIGHT(-1, 1),
+    BOTTOM_LEFT(1, -1);
+
+    public final int dRow;          // row step
+    public final int dCol;          // column step
+
+    Direction(int dRow, int dCol) {
+        this.dRow = dRow;
+        this.dCol = dCol;
+    }
+
+    // the direction pointing the other way along the same line
+    public Direction reverse() {
+        return values()[ordinal() ^ 1];
+    }
+}
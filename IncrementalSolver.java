@@ -0,0 +1,256 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Keeps the solution of one puzzle up to date while its letters change a few at a time.
+ * <p>
+ * The puzzle is solved once up front and every match is indexed by the cell it starts on.
+ * A word can only cover a changed cell if it starts on that cell or on one of the
+ * maxChars - 1 cells before it in its own direction, so those are the only rays that can
+ * gain or lose words.  setChar() re-scans just those rays, at most 8 x maxChars of them,
+ * compares them with what the index held and returns the difference.  The cost of an
+ * update depends on maxChars, never on the size of the grid.
+ * <p>
+ * Not thread safe; the puzzle should only be changed through this class.
+ */
+public class IncrementalSolver {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final WordPuzzle puzzle;
+    private final int rows;
+    private final int columns;
+    private final int maxChars;
+    private final WordDictionary.Cursor cursor;
+    private final char[] chars;
+    private final List<Match>[] byStart;        // matches starting on row * columns + col, or null
+    private final int[] rayMarks;               // update number that last re-scanned each (cell, direction)
+    private int updates;
+    private long count;
+
+    /**
+     * Words added and removed by one update.  A cell changed to a different letter can
+     * replace one word with another of the same length and start; that shows up as one
+     * removed and one added.
+     */
+    public static class Delta {
+        private final List<Match> added = new ArrayList<>();
+        private final List<Match> removed = new ArrayList<>();
+
+        public List<Match> getAdded() {
+            return added;
+        }
+
+        public List<Match> getRemoved() {
+            return removed;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public IncrementalSolver(WordDictionary dictionary, WordPuzzle puzzle) {
+        this.puzzle = puzzle;
+        rows = puzzle.getRows();
+        columns = puzzle.getColumns();
+        maxChars = Math.max(1, dictionary.getMaxChars());
+        cursor = dictionary.cursor();
+        chars = new char[maxChars];
+        byStart = (List<Match>[]) new List<?>[rows * columns];
+        rayMarks = new int[rows * columns * DIRECTIONS.length];
+
+        MatchSink index = (chars, length, wordId, row, column, direction) -> {
+            add(new Match(new String(chars, 0, length), wordId, row, column, direction));
+        };
+        new Solver(dictionary).solve(puzzle, index);
+    }
+
+    public WordPuzzle getPuzzle() {
+        return puzzle;
+    }
+
+    // number of words currently in the puzzle
+    public long getCount() {
+        return count;
+    }
+
+    // every current match, in row, column and direction order
+    public List<Match> getMatches() {
+        List<Match> matches = new ArrayList<>();
+        for (List<Match> starts : byStart) {
+            if (starts != null) {
+                matches.addAll(starts);
+            }
+        }
+        return matches;
+    }
+
+    // matches starting on one cell
+    public List<Match> getMatches(int row, int column) {
+        List<Match> starts = byStart[row * columns + column];
+        return starts == null ? Collections.emptyList() : Collections.unmodifiableList(starts);
+    }
+
+    // change one letter and return the words that appeared and disappeared
+    public Delta setChar(int row, int column, char c) {
+        return setChars(new int[] {row}, new int[] {column}, new char[] {c});
+    }
+
+    /**
+     * Change several letters at once, letters[i] going to (rowIndexes[i], columnIndexes[i]).
+     * Rays through more than one of the cells are only re-scanned once.
+     */
+    public Delta setChars(int[] rowIndexes, int[] columnIndexes, char[] letters) {
+        if (rowIndexes.length != columnIndexes.length || rowIndexes.length != letters.length) {
+            throw new IllegalArgumentException("Need one row and one column for every letter");
+        }
+        for (int i = 0; i < letters.length; i++) {
+            puzzle.setChar(rowIndexes[i], columnIndexes[i], letters[i]);
+        }
+
+        updates++;
+        Delta delta = new Delta();
+        for (int i = 0; i < letters.length; i++) {
+            for (Direction direction : DIRECTIONS) {
+                // rays in this direction that reach the cell start on it or up to maxChars - 1 cells before it
+                int t = rowIndexes[i];
+                int s = columnIndexes[i];
+                for (int k = 0; k < maxChars && t >= 0 && t < rows && s >= 0 && s < columns; k++) {
+                    rescan(t, s, direction, delta);
+                    t -= direction.dRow;
+                    s -= direction.dCol;
+                }
+            }
+        }
+        return delta;
+    }
+
+    // scan one ray again and bring the index up to date with it
+    private void rescan(int row, int column, Direction direction, Delta delta) {
+        int cell = row * columns + column;
+        int ray = cell * DIRECTIONS.length + direction.ordinal();
+        if (rayMarks[ray] == updates) {
+            return;                                 // already done for this update
+        }
+        rayMarks[ray] = updates;
+
+        List<Match> found = new ArrayList<>();
+        cursor.start();
+        int t = row;
+        int s = column;
+        int length = 0;
+        while (t >= 0 && t < rows && s >= 0 && s < columns) {
+            char c = puzzle.getChar(t, s);
+            int result = cursor.advance(c);
+            if (result == WordDictionary.NOT_PREFIX) {
+                break;
+            }
+            chars[length++] = c;
+            if (result == WordDictionary.WORD) {
+                found.add(new Match(new String(chars, 0, length), cursor.wordId(), row, column, direction));
+            }
+            t += direction.dRow;
+            s += direction.dCol;
+        }
+
+        // old matches on this ray that are gone
+        List<Match> starts = byStart[cell];
+        if (starts != null) {
+            for (int i = starts.size() - 1; i >= 0; i--) {
+                Match match = starts.get(i);
+                if (match.getDirection() == direction && !found.remove(match)) {
+                    starts.remove(i);
+                    count--;
+                    delta.removed.add(match);
+                }
+            }
+        }
+        // what is left of found is new
+        for (Match match : found) {
+            add(match);
+            delta.added.add(match);
+        }
+    }
+
+    // index a match under its start cell, keeping the cell's list in direction then length order
+    private void add(Match match) {
+        int cell = match.getRow() * columns + match.getColumn();
+        List<Match> starts = byStart[cell];
+        if (starts == null) {
+            starts = new ArrayList<>(2);
+            byStart[cell] = starts;
+        }
+        int i = starts.size();
+        while (i > 0 && comesAfter(starts.get(i - 1), match)) {
+            i--;
+        }
+        starts.add(i, match);
+        count++;
+    }
+
+    // order matches from one cell the way Solver reports them
+    private static boolean comesAfter(Match a, Match b) {
+        int order = a.getDirection().compareTo(b.getDirection());
+        return order > 0 || order == 0 && a.getLength() > b.getLength();
+    }
+
+    /**
+     * java IncrementalSolver [-rows 1000] [-columns 1000] [-seed 1] [-updates 100000]
+     * <p>
+     * Times random single-letter updates against one full solve of the same grid.
+     */
+    public static void main(String[] args) throws Exception {
+        int rowCount = 1000;
+        int columnCount = 1000;
+        long seed = 1;
+        int updateCount = 100_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-rows":
+                    rowCount = Integer.parseInt(args[++i]);
+                    break;
+                case "-columns":
+                    columnCount = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-updates":
+                    updateCount = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        WordDictionary dictionary = MappedDawg.load("dictionary.txt", "dictionary.dawg");
+        WordPuzzle puzzle = new WordPuzzle(rowCount, columnCount, seed);
+        long startTime = System.nanoTime();
+        IncrementalSolver solver = new IncrementalSolver(dictionary, puzzle);
+        double fullMillis = (System.nanoTime() - startTime) / 1e6;
+
+        Random rand = new Random(seed);
+        long added = 0;
+        long removed = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < updateCount; i++) {
+            Delta delta = solver.setChar(rand.nextInt(rowCount), rand.nextInt(columnCount),
+                    (char) ('a' + rand.nextInt(26)));
+            added += delta.getAdded().size();
+            removed += delta.getRemoved().size();
+        }
+        double updateMicros = (System.nanoTime() - startTime) / 1e3 / Math.max(1, updateCount);
+
+        System.out.println(String.format(Locale.ROOT, "full solve: %.1fms, %d words", fullMillis, solver.getCount()));
+        System.out.println(String.format(Locale.ROOT, "%d updates: %.2fus each, %d words added, %d removed",
+                updateCount, updateMicros, added, removed));
+    }
+}
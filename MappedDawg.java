@@ -0,0 +1,233 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A Dawg saved to a binary snapshot file and answered straight from a memory mapping
+ * of that file, so startup costs a header check instead of a dictionary build.
+ * <p>
+ * Snapshot layout (big endian): magic, version, SHA-256 of the source word list,
+ * word count, max chars, node count, edge count, then the edgeStart, edgeTarget,
+ * edgeRank, edgeLabel and terminal arrays exactly as Dawg holds them.  Version 1
+ * snapshots had no edgeRank and are rebuilt by load().
+ */
+public class MappedDawg implements WordGraph {
+
+    private static final int MAGIC = 0x57504447;           // "WPDG"
+    private static final int VERSION = 2;
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + 4 + HASH_BYTES + 4 * 4;
+
+    private final IntBuffer edgeStart;
+    private final IntBuffer edgeTarget;
+    private final IntBuffer edgeRank;
+    private final CharBuffer edgeLabel;
+    private final LongBuffer terminal;
+    private final int wordCount;
+    private final int maxChars;
+    private final int nodeCount;
+
+    private MappedDawg(MappedByteBuffer buffer) {
+        buffer.position(4 + 4 + HASH_BYTES);
+        wordCount = buffer.getInt();
+        maxChars = buffer.getInt();
+        nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+
+        edgeStart = slice(buffer, 4 * (nodeCount + 1)).asIntBuffer();
+        edgeTarget = slice(buffer, 4 * edgeCount).asIntBuffer();
+        edgeRank = slice(buffer, 4 * edgeCount).asIntBuffer();
+        edgeLabel = slice(buffer, 2 * edgeCount).asCharBuffer();
+        terminal = slice(buffer, 8 * ((nodeCount + 63) >>> 6)).asLongBuffer();
+    }
+
+    // bytes of the arrays after the header for these counts
+    private static long sectionBytes(int nodeCount, int edgeCount) {
+        return 4L * (nodeCount + 1L) + (4L + 4L + 2L) * edgeCount + 8L * ((nodeCount + 63L) >>> 6);
+    }
+
+    // the next length bytes of buffer as their own buffer
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    /**
+     * Map the snapshot for a word list, first (re)building it from the word list if it
+     * is missing, unreadable, truncated or was built from a different version of the file.
+     */
+    public static MappedDawg load(String dictionaryFile, String snapshotFile) throws IOException {
+        Path source = Paths.get(dictionaryFile);
+        Path snapshot = Paths.get(snapshotFile);
+        byte[] sourceHash = hash(source);
+
+        if (isCurrent(snapshot, sourceHash)) {
+            try {
+                return open(snapshot);
+            } catch (IOException | RuntimeException e) {
+                // truncated or corrupt past the header: rebuild it like a stale one
+            }
+        }
+        write(Dawg.fromFile(dictionaryFile), sourceHash, snapshot);
+        return open(snapshot);
+    }
+
+    // map an existing snapshot without checking it against its source
+    public static MappedDawg open(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a dictionary snapshot: " + snapshot);
+            }
+            int wordCount = buffer.getInt(4 + 4 + HASH_BYTES);
+            int maxChars = buffer.getInt(4 + 4 + HASH_BYTES + 4);
+            int nodeCount = buffer.getInt(4 + 4 + HASH_BYTES + 8);
+            int edgeCount = buffer.getInt(4 + 4 + HASH_BYTES + 12);
+            if (wordCount < 0 || maxChars < 0 || nodeCount < 0 || edgeCount < 0
+                    || HEADER_BYTES + sectionBytes(nodeCount, edgeCount) != buffer.capacity()) {
+                throw new IOException("Corrupt dictionary snapshot: " + snapshot);
+            }
+            return new MappedDawg(buffer);      // the mapping stays valid after the channel closes
+        }
+    }
+
+    // write dawg as a snapshot, replacing the file atomically so readers never see half of it
+    public static void write(Dawg dawg, byte[] sourceHash, Path snapshot) throws IOException {
+        Path parent = snapshot.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(sourceHash);
+                dawg.writeTo(out);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // true if snapshot exists and was built from a source with this hash
+    private static boolean isCurrent(Path snapshot, byte[] sourceHash) throws IOException {
+        if (!Files.isRegularFile(snapshot) || Files.size(snapshot) < HEADER_BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4 + 4 + HASH_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < 4 + 4 + HASH_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return false;
+            }
+            byte[] stored = new byte[HASH_BYTES];
+            header.get(stored);
+            return Arrays.equals(stored, sourceHash);
+        }
+    }
+
+    // SHA-256 of a file's contents
+    static byte[] hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] block = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(block)) > 0) {
+                digest.update(block, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int edge(int node, char c) {
+        int end = edgeStart.get(node + 1);
+        for (int e = edgeStart.get(node); e < end; e++) {
+            char label = edgeLabel.get(e);
+            if (label == c) {
+                return e;
+            }
+            if (label > c) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int edgeEnd(int node) {
+        return edgeStart.get(node + 1);
+    }
+
+    @Override
+    public char label(int edge) {
+        return edgeLabel.get(edge);
+    }
+
+    @Override
+    public int target(int edge) {
+        return edgeTarget.get(edge);
+    }
+
+    @Override
+    public int rank(int edge) {
+        return edgeRank.get(edge);
+    }
+
+    @Override
+    public boolean isWordNode(int node) {
+        return (terminal.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    @Override
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    @Override
+    public int wordIdCount() {
+        return wordCount;
+    }
+
+    public int wordCount() {
+        return wordCount;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,71 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.Objects;
+
+// a word found in the puzzle: where it starts and which way it reads
+public class Match {
+
+    private final String word;
+    private final int wordId;
+    private final int row;
+    private final int column;
+    private final Direction direction;
+
+    public Match(String word, int row, int column, Direction direction) {
+        this(word, WordDictionary.NO_WORD, row, column, direction);
+    }
+
+    public Match(String word, int wordId, int row, int column, Direction direction) {
+        this.word = word;
+        this.wordId = wordId;
+        this.row = row;
+        this.column = column;
+        this.direction = direction;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    // the word's dictionary id, or WordDictionary.NO_WORD if not known
+    public int getWordId() {
+        return wordId;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public int getLength() {
+        return word.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Match)) {
+            return false;
+        }
+        Match other = (Match) o;
+        return row == other.row && column == other.column && direction == other.direction
+                && word.equals(other.word);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(word, row, column, direction);
+    }
+
+    @Override
+    public String toString() {
+        return word + " (" + row + ", " + column + ") " + direction;
+    }
+}
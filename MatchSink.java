@@ -0,0 +1,63 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives the words found by a solver as they are found.  The characters are passed
+ * in the solver's scratch buffer, which is only valid during the call, so sinks that
+ * don't need the text (such as Counter or WordTally) cost nothing per match.  Sinks are
+ * not shared between threads.
+ */
+public interface MatchSink {
+
+    // chars[0, length) is the word, with id wordId, starting at (row, column) reading in direction
+    void found(char[] chars, int length, int wordId, int row, int column, Direction direction);
+
+    // keeps every match
+    class Collector implements MatchSink {
+        private final List<Match> matches = new ArrayList<>();
+
+        @Override
+        public void found(char[] chars, int length, int wordId, int row, int column, Direction direction) {
+            matches.add(new Match(new String(chars, 0, length), wordId, row, column, direction));
+        }
+
+        public List<Match> getMatches() {
+            return matches;
+        }
+    }
+
+    // only counts matches
+    class Counter implements MatchSink {
+        private long count;
+
+        @Override
+        public void found(char[] chars, int length, int wordId, int row, int column, Direction direction) {
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    // writes each word followed by a space, as the menu algorithms always have
+    class Printer implements MatchSink {
+        private final PrintStream out;
+
+        public Printer(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void found(char[] chars, int length, int wordId, int row, int column, Direction direction) {
+            for (int i = 0; i < length; i++) {
+                out.print(chars[i]);
+            }
+            out.print(' ');
+        }
+    }
+}
@@ -1,24 +1,33 @@
 // Levon Kalantarian
 // Word Puzzle Solver
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
 
-public class MyHashTable<AnyType> extends WordPuzzle {
+public class MyHashTable<AnyType> extends WordPuzzle implements WordDictionary {
 
     private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final int MIGRATE_BATCH = 64;        // old slots moved per insert, remove or contains
 
     private MyHashTable.HashEntry<AnyType>[] array;    // The array of elements
-    private int occupied;                   // The number of occupied cells     occupied count
-    private int theSize;                    // Current size                     visible size
+    private MyHashTable.HashEntry<AnyType>[] oldArray; // table being moved into array, or null
+    private int migrated;                   // old slots before this have been moved
+    private long migrateNanos;              // time spent on the resize in progress, for metrics
+    private int occupied;                   // The number of occupied cells     occupied count (in array)
+    private int theSize;                    // Current size                     visible size (both arrays)
     private int maxChars;
+    private final List<AnyType> words = new ArrayList<>();     // words by id, as numbered by makeTable()
+    private PatternIndex patterns;          // pattern lookups, built by makeTable()
 
 
     private static class HashEntry<AnyType> {
         public AnyType element;             // the element
         public boolean isActive;            // false if marked deleted
         public boolean isWord;              // if the entry is a word
+        public int wordId = NO_WORD;        // index into words, if the entry is a word
 
         public HashEntry(AnyType e) {
             this(e, true, false);
@@ -31,6 +40,102 @@ public class MyHashTable<AnyType> extends WordPuzzle {
         }
     }
 
+    /**
+     * Lookup cursor that keeps the characters seen so far along with their running
+     * String.hashCode(), so each advance() is a single linear probe comparing the
+     * buffered characters against the stored keys in place.
+     */
+    private class Cursor implements WordDictionary.Cursor {
+        private final char[] chars = new char[maxChars];
+        private int length;
+        private int hash;
+        private int wordId = NO_WORD;
+        private boolean dead = true;
+
+        @Override
+        public void start() {
+            length = 0;
+            hash = 0;
+            wordId = NO_WORD;
+            dead = false;
+        }
+
+        @Override
+        public int advance(char c) {
+            wordId = NO_WORD;
+            if (dead || length == chars.length) {       // nothing is longer than maxChars
+                dead = true;
+                return NOT_PREFIX;
+            }
+            chars[length] = c;
+            int newHash = 31 * hash + c;                // same as String.hashCode(), one character on
+
+            HashEntry<AnyType> entry = probe(array, newHash);
+            if ((entry == null || !entry.isActive) && oldArray != null) {
+                entry = probe(oldArray, newHash);        // not moved to the new table yet
+            }
+            if (entry == null || !entry.isActive) {
+                dead = true;
+                return NOT_PREFIX;
+            }
+            length++;
+            hash = newHash;
+            if (!entry.isWord) {
+                return PREFIX;
+            }
+            wordId = entry.wordId;
+            return WORD;
+        }
+
+        // entry in table whose key is chars[0, length], or null
+        private HashEntry<AnyType> probe(HashEntry<AnyType>[] table, int newHash) {
+            int currentPos = myhash(newHash, table.length);
+            int probes = 1;
+            while (table[currentPos] != null && !sameChars(table[currentPos].element, length + 1)) {
+                currentPos++;
+                if (currentPos >= table.length) {
+                    currentPos -= table.length;
+                }
+                probes++;
+            }
+            if (SolveMetrics.ENABLED) {
+                SolveMetrics.probe(probes);
+            }
+            return table[currentPos];
+        }
+
+        private boolean sameChars(AnyType element, int len) {
+            CharSequence key = (CharSequence) element;
+            if (key.length() != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (key.charAt(i) != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            length = 0;
+            hash = 0;
+            wordId = NO_WORD;
+            dead = true;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public int wordId() {
+            return wordId;
+        }
+    }
+
     public MyHashTable() {
         this(DEFAULT_TABLE_SIZE);
     }
@@ -46,11 +151,16 @@ public class MyHashTable<AnyType> extends WordPuzzle {
     }
 
     public boolean insert(AnyType x) {
+        migrate();
+
         // Insert x as active
-        int currentPos = findPos(x);
+        int currentPos = findPos(array, x);
         if (isActive(currentPos)) {     // if active, found a duplicate
             return false;
         }
+        if (oldArray != null && isActive(oldArray[findPos(oldArray, x)])) {
+            return false;               // duplicate not moved over yet
+        }
 
         if (array[currentPos] == null) {
             ++occupied;                 // increase slots occupied
@@ -60,7 +170,8 @@ public class MyHashTable<AnyType> extends WordPuzzle {
 
         // Rehash; see Section 5.5
         if (occupied > array.length / 2) {          // testing if # occupied cells exceeds 1/2 array size
-            rehash();
+            finishResize();
+            startResize(2 * array.length);
         }
 
         return true;
@@ -68,48 +179,112 @@ public class MyHashTable<AnyType> extends WordPuzzle {
 
     // remove from the hash table
     public boolean remove(AnyType x) {
-        int currentPos = findPos(x);
-        if (isActive(currentPos)) {
-            array[currentPos].isActive = false;     // mark as deleted
-            theSize--;                              // reduce visible size, but not occupied count
-            return true;
-        } else {
+        migrate();
+        HashEntry<AnyType> entry = findEntry(x);
+        if (entry == null) {
             return false;
         }
-    }
+        entry.isActive = false;                     // mark as deleted
+        theSize--;                                  // reduce visible size, but not occupied count
 
-    private void rehash() {
-        HashEntry<AnyType>[] oldArray = array;      // saves the old array
+        // once a quarter of the slots are deleted entries, flush them out with a same-size resize
+        if (oldArray == null && occupied - theSize > array.length / 4) {
+            startResize(array.length);
+        }
+        return true;
+    }
 
-        // Create a new double-sized, empty table
-        allocateArray(2 * oldArray.length);
+    /**
+     * Begin moving every entry into a new table of at least newSize slots.
+     * <p>
+     * Rather than copying the whole table at once, the old table is kept next to the
+     * new one, and each insert, remove and contains moves the next MIGRATE_BATCH slots
+     * across.  Lookups check the new table first and then the old one.  Deleted entries
+     * are not copied; a kind of flushing effect of lazily deleted entries.
+     */
+    private void startResize(int newSize) {
+        long startTime = System.nanoTime();
+        oldArray = array;
+        migrated = 0;
+        allocateArray(newSize);
         occupied = 0;
-        theSize = 0;
+        migrateNanos = System.nanoTime() - startTime;
+    }
 
-        // Copy table, deleted entries not copied;  a kind of flushing effect of lazily deleted entries
-        for (HashEntry<AnyType> entry : oldArray) {
+    // move the next batch of old slots, if a resize is in progress
+    private void migrate() {
+        if (oldArray != null) {
+            migrate(MIGRATE_BATCH);
+        }
+    }
+
+    // complete any resize in progress
+    public void finishResize() {
+        if (oldArray != null) {
+            migrate(oldArray.length);
+        }
+    }
+
+    private void migrate(int slots) {
+        long startTime = System.nanoTime();
+        int end = Math.min(oldArray.length, migrated + slots);
+        for (int i = migrated; i < end; i++) {
+            HashEntry<AnyType> entry = oldArray[i];
             if (entry != null && entry.isActive) {
-                insert(entry.element);
+                int currentPos = findPos(array, entry.element);
+                if (array[currentPos] == null) {
+                    ++occupied;
+                }
+                HashEntry<AnyType> moved = new HashEntry<>(entry.element, true, entry.isWord);
+                moved.wordId = entry.wordId;
+                array[currentPos] = moved;
+                entry.isActive = false;     // stays in the old probe chain, but now lives in array
+            }
+        }
+        migrated = end;
+        migrateNanos += System.nanoTime() - startTime;
+        if (migrated == oldArray.length) {
+            oldArray = null;
+            if (SolveMetrics.ENABLED) {
+                SolveMetrics.rehash("MyHashTable", migrateNanos, occupied, theSize, array.length);
             }
         }
     }
 
+    public boolean isResizing() {
+        return oldArray != null;
+    }
+
     // linear probing
-    private int findPos(AnyType x) {
+    private int findPos(HashEntry<AnyType>[] table, AnyType x) {
         int offset = 1;
-        int currentPos = myhash(x);
+        int currentPos = myhash(x.hashCode(), table.length);
+        int probes = 1;
 
-        while (array[currentPos] != null && !array[currentPos].element.equals(x)) { // if occupied and not duplicate
+        while (table[currentPos] != null && !table[currentPos].element.equals(x)) { // if occupied and not duplicate
             currentPos += offset;   // Compute ith probe
             // offset remains at 1 for linear probing
 //             offset += 2;            // taking the old position, adding 2 to offset, and adding offset to that
-            if (currentPos >= array.length) {
-                currentPos -= array.length; // if go off the end, wrap around
+            if (currentPos >= table.length) {
+                currentPos -= table.length; // if go off the end, wrap around
             }
+            probes++;
+        }
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.probe(probes);
         }
         return currentPos;
     }
 
+    // the active entry for x in either table, or null
+    private HashEntry<AnyType> findEntry(AnyType x) {
+        HashEntry<AnyType> entry = array[findPos(array, x)];
+        if ((entry == null || !entry.isActive) && oldArray != null) {
+            entry = oldArray[findPos(oldArray, x)];
+        }
+        return entry != null && entry.isActive ? entry : null;
+    }
+
     public int size() {
         return theSize;
     }
@@ -119,17 +294,66 @@ public class MyHashTable<AnyType> extends WordPuzzle {
     }
 
     public boolean contains(AnyType x) {
-        int currentPos = findPos(x);
-        return isActive(currentPos);
+        migrate();
+        return findEntry(x) != null;
+    }
+
+    /*
+     * The WordDictionary methods below only read, and never move entries between
+     * tables, so a finished table can be shared by several solver threads.
+     */
+
+    // entry for the String s; safe because the table is only ever a MyHashTable<String>
+    @SuppressWarnings("unchecked")
+    private HashEntry<AnyType> findString(CharSequence s) {
+        return findEntry((AnyType) s.toString());
+    }
+
+    // prefix lookups only make sense for tables of Strings, as built by makeTable()
+    @Override
+    public boolean isPrefix(CharSequence s) {
+        return findString(s) != null;
+    }
+
+    @Override
+    public boolean isWord(CharSequence s) {
+        HashEntry<AnyType> entry = findString(s);
+        return entry != null && entry.isWord;
+    }
+
+    @Override
+    public int wordId(CharSequence s) {
+        HashEntry<AnyType> entry = findString(s);
+        return entry != null && entry.isWord ? entry.wordId : NO_WORD;
+    }
+
+    @Override
+    public String word(int wordId) {
+        return words.get(wordId).toString();
+    }
+
+    @Override
+    public int wordIdCount() {
+        return words.size();
+    }
+
+    @Override
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    // cursor over a table of Strings; only valid while the table is not modified
+    @Override
+    public WordDictionary.Cursor cursor() {
+        return new Cursor();
     }
 
     private boolean isActive(int currentPos) {
-        return array[currentPos] != null && array[currentPos].isActive;
+        return isActive(array[currentPos]);
     }
 
-    // check if entry is a word
-    private boolean isWord(int currentPos) {
-        return array[currentPos] != null && array[currentPos].isWord;
+    private static boolean isActive(HashEntry<?> entry) {
+        return entry != null && entry.isActive;
     }
 
     public void makeEmpty() {
@@ -137,18 +361,19 @@ public class MyHashTable<AnyType> extends WordPuzzle {
     }
 
     private void doClear() {
+        oldArray = null;
         occupied = 0;
+        theSize = 0;
+        words.clear();
         for (int i = 0; i < array.length; i++) {
             array[i] = null;
         }
     }
 
-    private int myhash(AnyType x) {
-        int hashVal = x.hashCode();
-
-        hashVal %= array.length;
+    private static int myhash(int hashVal, int length) {
+        hashVal %= length;
         if (hashVal < 0) {
-            hashVal += array.length;
+            hashVal += length;
         }
         return hashVal;
     }
@@ -190,6 +415,11 @@ public class MyHashTable<AnyType> extends WordPuzzle {
         return true;
     }
 
+    // pattern index over the words as loaded by makeTable(), or null for other tables
+    public PatternIndex getPatternIndex() {
+        return patterns;
+    }
+
     // get integer input
     private static int getInt() {
         Scanner scanner = new Scanner(System.in);
@@ -211,282 +441,76 @@ public class MyHashTable<AnyType> extends WordPuzzle {
 
     // first algorithm
     public void alg1(WordPuzzle newPuzzle) {
+        printResult(newPuzzle, solveRegular(newPuzzle));
+    }
 
-        System.out.println();
-        long startTime = System.currentTimeMillis();
-        StringBuilder sb;
-        for (int row = 0; row < newPuzzle.getRows(); row++) {
-            for (int col = 0; col < newPuzzle.getColumns(); col++) {
-
-                // left to right
-                sb = new StringBuilder();
-                for (int t = col; t < newPuzzle.getColumns(); t++) {
-                    sb.append(newPuzzle.getChar(row, t));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                }
-
-                // right to left
-                sb = new StringBuilder();
-                for (int t = col; t > 0; t--) {
-                    sb.append(newPuzzle.getChar(row, t));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                }
-
-                // top down
-                sb = new StringBuilder();
-                for (int t = row; t < newPuzzle.getRows(); t++) {
-                    sb.append(newPuzzle.getChar(t, col));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                }
-
-                // bottom up
-                sb = new StringBuilder();
-                for (int t = row; t > 0; t--) {
-                    sb.append(newPuzzle.getChar(t, col));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                }
-
-                // bottom right
-                sb = new StringBuilder();
-                int t = row;
-                int s = col;
-                while (t < newPuzzle.getRows() && s < newPuzzle.getColumns()) {
-                    sb.append(newPuzzle.getChar(t, s));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                    s++;
-                    t++;
-                }
+    // enhanced algorithm
+    public void alg2(WordPuzzle newPuzzle) {
+        alg2(newPuzzle, this);
+    }
 
-                // top left
-                sb = new StringBuilder();
-                t = row;
-                s = col;
-                while (t > 0 && s > 0) {
-                    sb.append(newPuzzle.getChar(t, s));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                    s--;
-                    t--;
-                }
+    // enhanced algorithm, against any dictionary
+    public static void alg2(WordPuzzle newPuzzle, WordDictionary dictionary) {
+        printResult(newPuzzle, new Solver(dictionary).solve(newPuzzle));
+    }
 
-                // top right
-                sb = new StringBuilder();
-                t = row;
-                s = col;
-                while (t > 0 && s < newPuzzle.getColumns()) {
-                    sb.append(newPuzzle.getChar(t, s));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                    s++;
-                    t--;
-                }
+    // parallel enhanced algorithm
+    public static void alg3(WordPuzzle newPuzzle, WordDictionary dictionary) {
+        printResult(newPuzzle, new ParallelSolver(dictionary).solve(newPuzzle));
+    }
 
-                // bottom left
-                sb = new StringBuilder();
-                t = row;
-                s = col;
-                while (t < newPuzzle.getRows() && s > 0) {
-                    sb.append(newPuzzle.getChar(t, s));
-                    if (isWord(findPos((AnyType) sb.toString()))) {
-                        System.out.print(sb.toString() + " ");
-                    }
-                    s--;
-                    t++;
-                }
-            }
-            System.out.println();
-        }
-        long endTime = System.currentTimeMillis();
-        System.out.println("\nElapsed time: " + (endTime - startTime) + "ms" + "\n");
+    // printing comes after the solve, so the elapsed time only covers the search
+    private static void printResult(WordPuzzle newPuzzle, SolveResult result) {
+        System.out.println();
+        result.print(newPuzzle);
+        System.out.println("\nElapsed time: " + result.getElapsedMillis() + "ms" + "\n");
     }
 
-    // enhanced algorithm
-    public void alg2(WordPuzzle newPuzzle) {
+    // regular algorithm: look up every string along every ray, with no prefix pruning
+    public SolveResult solveRegular(WordPuzzle newPuzzle) {
+        MatchSink.Collector collector = new MatchSink.Collector();
+        SolveResult result = solveRegular(newPuzzle, collector);
+        return new SolveResult(collector.getMatches(), result.getCount(), result.getElapsedNanos());
+    }
 
-        System.out.println();
-        long startTime = System.currentTimeMillis();
+    public SolveResult solveRegular(WordPuzzle newPuzzle, MatchSink sink) {
+        long startTime = System.nanoTime();
+        long count = 0;
+        char[] chars = new char[Math.max(newPuzzle.getRows(), newPuzzle.getColumns())];
         StringBuilder sb;
         for (int row = 0; row < newPuzzle.getRows(); row++) {
             for (int col = 0; col < newPuzzle.getColumns(); col++) {
-
-                // left to right
-                sb = new StringBuilder();
-                String lookup;
-                int chars = 0;
-                for (int t = col; t < newPuzzle.getColumns(); t++) {
-                    if (++chars > maxChars) {                  // if reached max char count, break
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(row, t));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {          // if reached a non-prefix character sequence, break from loop
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                }
-
-                // right to left
-                chars = 0;
-                sb = new StringBuilder();       // clear StringBuilder
-                for (int t = col; t > 0; t--) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(row, t));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
+                for (Direction direction : Direction.values()) {
+                    sb = new StringBuilder();
+                    int t = row;
+                    int s = col;
+                    while (t >= 0 && t < newPuzzle.getRows() && s >= 0 && s < newPuzzle.getColumns()) {
+                        char c = newPuzzle.getChar(t, s);
+                        chars[sb.length()] = c;
+                        sb.append(c);
+                        int wordId = wordId(sb);
+                        if (wordId != NO_WORD) {
+                            sink.found(chars, sb.length(), wordId, row, col, direction);
+                            count++;
+                        }
+                        t += direction.dRow;
+                        s += direction.dCol;
                     }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                }
-
-                // top down
-                chars = 0;
-                sb = new StringBuilder();
-                for (int t = row; t < newPuzzle.getRows(); t++) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(t, col));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                }
-
-                // bottom up
-                chars = 0;
-                sb = new StringBuilder();
-                for (int t = row; t > 0; t--) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(t, col));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                }
-
-                // bottom right
-                chars = 0;
-                sb = new StringBuilder();
-                int t = row;
-                int s = col;
-                while (t < newPuzzle.getRows() && s < newPuzzle.getColumns()) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(t, s));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                    s++;
-                    t++;
-                }
-
-                // top left
-                chars = 0;
-                sb = new StringBuilder();
-                t = row;
-                s = col;
-                while (t > 0 && s > 0) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(t, s));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                    s--;
-                    t--;
-                }
-
-                // top right
-                chars = 0;
-                sb = new StringBuilder();
-                t = row;
-                s = col;
-                while (t > 0 && s < newPuzzle.getColumns()) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(t, s));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                    s++;
-                    t--;
-                }
-
-                // bottom left
-                chars = 0;
-                sb = new StringBuilder();
-                t = row;
-                s = col;
-                while (t < newPuzzle.getRows() && s > 0) {
-                    if (++chars > maxChars) {
-                        break;
-                    }
-                    sb.append(newPuzzle.getChar(t, s));
-                    lookup = sb.toString();
-                    if (!contains((AnyType) lookup)) {
-                        break;
-                    }
-                    int currentPos = findPos((AnyType) lookup);
-                    if (isWord(currentPos)) {
-                        System.out.print(lookup + " ");
-                    }
-                    s--;
-                    t++;
                 }
             }
-            System.out.println();
         }
+        return new SolveResult(Collections.emptyList(), count, System.nanoTime() - startTime);
+    }
 
-        long endTime = System.currentTimeMillis();
-        System.out.println("\nElapsed time: " + (endTime - startTime) + "ms" + "\n");
+    // list the words matching a pattern such as c?t
+    private static void findPattern(PatternIndex index) {
+        System.out.print("\nPlease enter a pattern, ? for any letter: ");
+        String pattern = new Scanner(System.in).next();
+        long startTime = System.nanoTime();
+        List<String> matches = index.match(pattern);
+        long elapsed = System.nanoTime() - startTime;
+        System.out.println(String.join(" ", matches));
+        System.out.println("\n" + matches.size() + " words in " + elapsed / 1000 + "us\n");
     }
 
     // create a new puzzle
@@ -513,40 +537,38 @@ public class MyHashTable<AnyType> extends WordPuzzle {
         System.out.print(
                 "1 - run regular algorithm\n" +
                         "2 - run enhanced algorithm\n" +
-                        "3 - make new puzzle\n" +
-                        "4 - re-print puzzle\n" +
-                        "5 - exit\n" +
-                        "Please enter 1-5:   ");
+                        "3 - run enhanced algorithm on all cores\n" +
+                        "4 - make new puzzle\n" +
+                        "5 - re-print puzzle\n" +
+                        "6 - find words matching a pattern\n" +
+                        "7 - exit\n" +
+                        "Please enter 1-7:   ");
     }
 
-    public static MyHashTable<String> makeTable() throws FileNotFoundException {
-        File file = new File("dictionary.txt");
-        Scanner fileScanner = new Scanner(file);
+    public static MyHashTable<String> makeTable() throws IOException {
+        WordList words = WordList.read("dictionary.txt");     // read and split on all cores
         MyHashTable<String> H = new MyHashTable<>(520000);
 
-        StringBuilder sb;
-        String word, prefix = null;
-        H.maxChars = 0;
-        while (fileScanner.hasNextLine()) {
-            int charCount = 0;
-            sb = new StringBuilder();               // new dictionary entry; start new string
-            word = fileScanner.nextLine();
-            for (int i = 0; i < word.length(); i++) {
-                sb.append(word.charAt(i));          // append new character from entry
-                prefix = sb.toString();
-                H.insert(prefix);                   // insert into hash table
-                charCount++;
-                if (charCount > H.maxChars) {
-                    H.maxChars = charCount;
-                }
+        H.maxChars = words.getMaxChars();
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            // the file is sorted, so prefixes up to the part shared with the previous word are already in
+            for (int length = words.commonPrefix(i) + 1; length <= word.length(); length++) {
+                H.insert(length == word.length() ? word : word.substring(0, length));
+            }
+            HashEntry<String> entry = H.findEntry(word);
+            if (entry != null && !entry.isWord) {
+                entry.isWord = true;                // after reaching end of entry, mark as word
+                entry.wordId = H.words.size();      // ids follow the order of the file
+                H.words.add(word);
             }
-            int currentPos = H.findPos(prefix);
-            H.array[currentPos].isWord = true;      // after reaching end of entry, mark as word
         }
+        H.finishResize();                           // solvers only read, so leave nothing half moved
+        H.patterns = new PatternIndex(H);
         return H;
     }
 
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
 
         WordPuzzle puzzle = newPuzzle();
         MyHashTable<String> H = makeTable();
@@ -567,13 +589,19 @@ public class MyHashTable<AnyType> extends WordPuzzle {
                     H.alg2(puzzle);
                     break;
                 case 3:
-                    puzzle = newPuzzle();
-                    puzzle.printPuzzle();
+                    alg3(puzzle, H);
                     break;
                 case 4:
+                    puzzle = newPuzzle();
                     puzzle.printPuzzle();
                     break;
                 case 5:
+                    puzzle.printPuzzle();
+                    break;
+                case 6:
+                    findPattern(H.getPatternIndex());
+                    break;
+                case 7:
                     running = false;
                     break;
                 default:
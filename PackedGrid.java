@@ -0,0 +1,101 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+/**
+ * Puzzle grid packed into one byte array, one byte per letter.
+ * <p>
+ * The letters are laid out row after row with a one-cell BORDER frame around them,
+ * so a cell is a single index and moving one step in a direction is adding that
+ * direction's stride.  A scan simply runs until it reads BORDER, with no row or column
+ * bounds checks and no separate row arrays to jump between.  Letters are stored as
+ * their 8-bit character codes, which covers the lowercase letters and the apostrophe.
+ */
+public class PackedGrid {
+
+    public static final byte BORDER = 0;
+
+    private final int rows;
+    private final int columns;
+    private final int stride;                   // bytes per padded row
+    private final byte[] cells;
+    private final int[] steps;                  // index step for each Direction
+
+    public PackedGrid(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        stride = columns + 2;
+        cells = new byte[(rows + 2) * stride];  // all BORDER until filled
+        steps = new int[Direction.values().length];
+        for (Direction direction : Direction.values()) {
+            steps[direction.ordinal()] = direction.dRow * stride + direction.dCol;
+        }
+    }
+
+    public static PackedGrid of(WordPuzzle puzzle) {
+        PackedGrid grid = new PackedGrid(puzzle.getRows(), puzzle.getColumns());
+        for (int row = 0; row < grid.rows; row++) {
+            int base = grid.index(row, 0);
+            for (int col = 0; col < grid.columns; col++) {
+                grid.cells[base + col] = pack(puzzle.getChar(row, col));
+            }
+        }
+        return grid;
+    }
+
+    private static byte pack(char c) {
+        if (c == 0 || c > 0xFF) {
+            throw new IllegalArgumentException("Letter does not fit in a packed grid: " + (int) c);
+        }
+        return (byte) c;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public char getChar(int row, int column) {
+        return (char) (cells[index(row, column)] & 0xFF);
+    }
+
+    public void setChar(int row, int column, char c) {
+        cells[index(row, column)] = pack(c);
+    }
+
+    // index of a cell in the packed array
+    public int index(int row, int column) {
+        return (row + 1) * stride + column + 1;
+    }
+
+    public int rowOf(int index) {
+        return index / stride - 1;
+    }
+
+    public int columnOf(int index) {
+        return index % stride - 1;
+    }
+
+    // index step for one move in direction
+    public int step(Direction direction) {
+        return steps[direction.ordinal()];
+    }
+
+    // the packed letters; solvers read these directly
+    byte[] cells() {
+        return cells;
+    }
+
+    // back to a WordPuzzle, e.g. for printing
+    public WordPuzzle toPuzzle() {
+        char[][] grid = new char[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                grid[row][col] = getChar(row, col);
+            }
+        }
+        return new WordPuzzle(grid);
+    }
+}
@@ -0,0 +1,238 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the enhanced algorithm on a ForkJoinPool by splitting the puzzle into bands of
+ * rows.  Each task scans its band with its own cursor into its own buffer, and the
+ * buffers are joined in row order, so the matches come out in exactly the order a
+ * serial Solver finds them.  The dictionary is only read, so one instance is shared
+ * by all tasks.
+ * <p>
+ * With a limit, a band scans row by row and stops once it holds limit matches.  It then
+ * lowers a cutoff row shared by the whole solve to its own end, since the first limit
+ * matches in serial order can't lie below it, and every band stops at the first row
+ * past the cutoff.  Each task forks the half of its rows further down the grid and
+ * scans the half nearer the top itself, so the bands that decide the result go first.
+ */
+public class ParallelSolver {
+
+    private static final int TASKS_PER_THREAD = 4;      // extra tasks to even out unlucky bands
+
+    private final Solver solver;
+    private final ForkJoinPool pool;
+
+    public ParallelSolver(WordDictionary dictionary) {
+        this(dictionary, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSolver(WordDictionary dictionary, ForkJoinPool pool) {
+        this.solver = new Solver(dictionary);
+        this.pool = pool;
+    }
+
+    // scans at most limit matches in rows [fromRow, toRow) of one grid into sink
+    private interface BandScanner {
+        long scan(int fromRow, int toRow, MatchSink sink, long limit);
+    }
+
+    // solve and keep every match, in serial order
+    public SolveResult solve(WordPuzzle puzzle) {
+        return solve(puzzle, SolveOptions.ALL);
+    }
+
+    public SolveResult solve(PackedGrid grid) {
+        return solve(grid, SolveOptions.ALL);
+    }
+
+    /*
+     * Keep the matches options allow.  Bands before the cutoff may still each find up to
+     * the limit, so the joined matches are cut back to it, leaving the first matches a
+     * serial Solver would find.
+     */
+    public SolveResult solve(WordPuzzle puzzle, SolveOptions options) {
+        return solve(scanner(puzzle, options), puzzle.getRows(), options.getLimit());
+    }
+
+    public SolveResult solve(PackedGrid grid, SolveOptions options) {
+        return solve(scanner(grid, options), grid.getRows(), options.getLimit());
+    }
+
+    private BandScanner scanner(WordPuzzle puzzle, SolveOptions options) {
+        return (from, to, sink, limit) -> solver.scanRows(puzzle, from, to, sink,
+                limit == options.getLimit() ? options : options.withLimit(limit));
+    }
+
+    private BandScanner scanner(PackedGrid grid, SolveOptions options) {
+        return (from, to, sink, limit) -> solver.scanRows(grid, from, to, sink,
+                limit == options.getLimit() ? options : options.withLimit(limit));
+    }
+
+    // distinct words and how often each was found; each task tallies its own band and the tallies are merged
+    public WordTally tally(WordPuzzle puzzle) {
+        return tally((from, to, sink, limit) -> solver.scanRows(puzzle, from, to, sink), puzzle.getRows());
+    }
+
+    public WordTally tally(PackedGrid grid) {
+        return tally((from, to, sink, limit) -> solver.scanRows(grid, from, to, sink), grid.getRows());
+    }
+
+    private WordTally tally(BandScanner scanner, int rows) {
+        return pool.invoke(new TallyTask(scanner, 0, rows, grain(rows)));
+    }
+
+    // solve without keeping the matches
+    public SolveResult count(WordPuzzle puzzle) {
+        return count(puzzle, SolveOptions.ALL);
+    }
+
+    public SolveResult count(PackedGrid grid) {
+        return count(grid, SolveOptions.ALL);
+    }
+
+    public SolveResult count(WordPuzzle puzzle, SolveOptions options) {
+        return count(scanner(puzzle, options), puzzle.getRows(), options.getLimit());
+    }
+
+    public SolveResult count(PackedGrid grid, SolveOptions options) {
+        return count(scanner(grid, options), grid.getRows(), options.getLimit());
+    }
+
+    private SolveResult solve(BandScanner scanner, int rows, long limit) {
+        long startTime = System.nanoTime();
+        Band band = pool.invoke(new RowTask(scanner, 0, rows, grain(rows), true, limit, new AtomicInteger(rows)));
+        if (band.count > limit) {
+            band.matches.subList((int) limit, band.matches.size()).clear();
+            band.count = limit;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(band.matches, band.count, elapsed);
+    }
+
+    private SolveResult count(BandScanner scanner, int rows, long limit) {
+        long startTime = System.nanoTime();
+        Band band = pool.invoke(new RowTask(scanner, 0, rows, grain(rows), false, limit, new AtomicInteger(rows)));
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(Collections.emptyList(), Math.min(band.count, limit), elapsed);
+    }
+
+    // solve, then replay the matches into sink in serial order on the calling thread
+    public SolveResult solve(WordPuzzle puzzle, MatchSink sink) {
+        SolveResult result = solve(puzzle);
+        char[] chars = new char[solver.getDictionary().getMaxChars()];
+        for (Match match : result.getMatches()) {
+            String word = match.getWord();
+            word.getChars(0, word.length(), chars, 0);
+            sink.found(chars, word.length(), match.getWordId(), match.getRow(), match.getColumn(),
+                    match.getDirection());
+        }
+        return new SolveResult(Collections.emptyList(), result.getCount(), result.getElapsedNanos());
+    }
+
+    private int grain(int rows) {
+        return Math.max(1, rows / (pool.getParallelism() * TASKS_PER_THREAD));
+    }
+
+    // what one task found
+    private static class Band {
+        final List<Match> matches;
+        long count;
+
+        Band(List<Match> matches, long count) {
+            this.matches = matches;
+            this.count = count;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class RowTask extends RecursiveTask<Band> {
+        private final BandScanner scanner;
+        private final int fromRow;
+        private final int toRow;
+        private final int grain;
+        private final boolean collect;
+        private final long limit;
+        private final AtomicInteger cutoff;         // rows from here on can't be in the result
+
+        RowTask(BandScanner scanner, int fromRow, int toRow, int grain, boolean collect, long limit,
+                AtomicInteger cutoff) {
+            this.scanner = scanner;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.grain = grain;
+            this.collect = collect;
+            this.limit = limit;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected Band compute() {
+            if (toRow - fromRow <= grain) {
+                MatchSink.Collector collector = collect ? new MatchSink.Collector() : null;
+                MatchSink sink = collect ? collector : new MatchSink.Counter();
+                long count = 0;
+                if (limit == Long.MAX_VALUE) {
+                    count = scanner.scan(fromRow, toRow, sink, limit);      // nothing to stop for
+                } else {
+                    for (int row = fromRow; row < toRow && count < limit && row < cutoff.get(); row++) {
+                        count += scanner.scan(row, row + 1, sink, limit - count);
+                    }
+                    if (count >= limit) {
+                        cutoff.accumulateAndGet(toRow, Math::min);
+                    }
+                }
+                return new Band(collect ? collector.getMatches() : new ArrayList<>(), count);
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            RowTask bottom = new RowTask(scanner, mid, toRow, grain, collect, limit, cutoff);
+            bottom.fork();
+            Band band = new RowTask(scanner, fromRow, mid, grain, collect, limit, cutoff).compute();
+            Band rest = bottom.join();
+            band.matches.addAll(rest.matches);          // top band first keeps the serial order
+            band.count += rest.count;
+            return band;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class TallyTask extends RecursiveTask<WordTally> {
+        private final BandScanner scanner;
+        private final int fromRow;
+        private final int toRow;
+        private final int grain;
+
+        TallyTask(BandScanner scanner, int fromRow, int toRow, int grain) {
+            this.scanner = scanner;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.grain = grain;
+        }
+
+        @Override
+        protected WordTally compute() {
+            if (toRow - fromRow <= grain) {
+                WordTally tally = new WordTally(solver.getDictionary());
+                scanner.scan(fromRow, toRow, tally, Long.MAX_VALUE);
+                return tally;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            TallyTask top = new TallyTask(scanner, fromRow, mid, grain);
+            top.fork();
+            WordTally tally = new TallyTask(scanner, mid, toRow, grain).compute();
+            tally.merge(top.join());
+            return tally;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds words that follow any path of adjacent cells, as in Boggle, instead of a
+ * straight line: each letter may be in any of the eight cells around the one before,
+ * and no cell is used twice in one word.
+ * <p>
+ * The search is a depth-first walk from every cell that moves through the dictionary's
+ * WordGraph in step with the grid.  A neighbour is only tried if the graph has an edge
+ * for its letter, so a path is dropped the moment it stops being a prefix and no search
+ * ever goes deeper than the longest word.  The cells of the current path are kept on a
+ * stack no deeper than that, and a neighbour with an edge is checked against it before
+ * the walk goes on; border cells of the packed grid have no edge and end a path.
+ * <p>
+ * Start cells are split into bands of rows on a ForkJoinPool; each task has its own
+ * path stack and WordTally, and the tallies are merged.  The tally counts each path that
+ * spells a word, so distinctCount() is the word list and totalCount() the paths.
+ */
+public class PathSolver {
+
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final WordGraph graph;
+    private final ForkJoinPool pool;
+
+    public PathSolver(WordGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public PathSolver(WordGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    public WordTally solve(WordPuzzle puzzle) {
+        return solve(PackedGrid.of(puzzle));
+    }
+
+    public WordTally solve(PackedGrid grid) {
+        int rows = grid.getRows();
+        int grain = Math.max(1, rows / (pool.getParallelism() * TASKS_PER_THREAD));
+        return pool.invoke(new RowTask(grid, 0, rows, grain));
+    }
+
+    // search from every cell in rows [fromRow, toRow) on the calling thread
+    public WordTally solve(PackedGrid grid, int fromRow, int toRow) {
+        WordTally tally = new WordTally(graph);
+        new Search(grid, tally).scanRows(fromRow, toRow);
+        return tally;
+    }
+
+    public WordGraph getDictionary() {
+        return graph;
+    }
+
+    // one thread's depth-first search state
+    private class Search {
+        private final PackedGrid grid;
+        private final byte[] cells;
+        private final int[] steps = new int[Direction.values().length];
+        private final int[] path;                   // cells of the current path, first to last
+        private int depth;
+        private final WordTally tally;
+
+        Search(PackedGrid grid, WordTally tally) {
+            this.grid = grid;
+            this.cells = grid.cells();
+            for (Direction direction : Direction.values()) {
+                steps[direction.ordinal()] = grid.step(direction);
+            }
+            this.path = new int[Math.max(1, graph.getMaxChars())];
+            this.tally = tally;
+        }
+
+        void scanRows(int fromRow, int toRow) {
+            for (int row = fromRow; row < toRow; row++) {
+                int cell = grid.index(row, 0);
+                for (int col = 0; col < grid.getColumns(); col++, cell++) {
+                    step(cell, graph.root(), 0);
+                }
+            }
+        }
+
+        // try to extend the path at node, word id so far wordId, into cell
+        private void step(int cell, int node, int wordId) {
+            int e = graph.edge(node, (char) (cells[cell] & 0xFF));
+            if (e < 0 || onPath(cell)) {
+                return;
+            }
+            int next = graph.target(e);
+            wordId += graph.rank(e);
+            if (graph.isWordNode(next)) {
+                tally.add(wordId);
+            }
+            path[depth++] = cell;
+            for (int step : steps) {
+                step(cell + step, next, wordId);
+            }
+            depth--;
+        }
+
+        // paths are as short as words, so a scan beats marking cells in a grid-sized bitmask
+        private boolean onPath(int cell) {
+            for (int i = 0; i < depth; i++) {
+                if (path[i] == cell) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class RowTask extends RecursiveTask<WordTally> {
+        private final PackedGrid grid;
+        private final int fromRow;
+        private final int toRow;
+        private final int grain;
+
+        RowTask(PackedGrid grid, int fromRow, int toRow, int grain) {
+            this.grid = grid;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.grain = grain;
+        }
+
+        @Override
+        protected WordTally compute() {
+            if (toRow - fromRow <= grain) {
+                return solve(grid, fromRow, toRow);
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            RowTask top = new RowTask(grid, fromRow, mid, grain);
+            top.fork();
+            WordTally tally = new RowTask(grid, mid, toRow, grain).compute();
+            tally.merge(top.join());
+            return tally;
+        }
+    }
+
+    /**
+     * java PathSolver [-rows 200] [-columns 200] [-seed 1] [-threads n] [-english] [-longest 10]
+     * <p>
+     * Solves one generated grid and prints the word and path counts and the longest words.
+     */
+    public static void main(String[] args) throws Exception {
+        int rows = 200;
+        int columns = 200;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        PuzzleGenerator.Letters letters = PuzzleGenerator.Letters.uniform();
+        int longest = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "-columns":
+                    columns = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-english":
+                    letters = PuzzleGenerator.Letters.english();
+                    break;
+                case "-longest":
+                    longest = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        WordGraph dictionary = MappedDawg.load("dictionary.txt", "dictionary.dawg");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        PackedGrid grid = new PuzzleGenerator(letters, pool).generatePacked(rows, columns, seed);
+        PathSolver solver = new PathSolver(dictionary, pool);
+
+        long startTime = System.nanoTime();
+        WordTally tally = solver.solve(grid);
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        pool.shutdown();
+
+        System.out.println(String.format(Locale.ROOT, "%dx%d grid: %d words on %d paths in %.1fms on %d threads",
+                rows, columns, tally.distinctCount(), tally.totalCount(), millis, threads));
+        List<String> words = tally.getWords();
+        words.sort((a, b) -> a.length() != b.length() ? b.length() - a.length() : a.compareTo(b));
+        System.out.println("Longest: " + words.subList(0, Math.min(longest, words.size())));
+    }
+}
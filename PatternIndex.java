@@ -0,0 +1,256 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Crossword-style pattern lookups over the words of a dictionary: "c?t" is every
+ * three letter word starting with 'c' and ending in 't', "??ing" every five letter word
+ * ending in "ing".
+ * <p>
+ * Words are bucketed by length, and every bucket keeps one bit set per (position,
+ * letter) pair saying which of its words have that letter there.  A query picks the
+ * bucket for its length and ANDs together the bit sets of its fixed letters, so it
+ * costs a few hundred word-sized operations however many words there are.  Letters
+ * other than 'a' to 'z' and the apostrophe have no bit set and are checked word by
+ * word instead.
+ * <p>
+ * The index is a copy of the words taken when it is built and never changes
+ * afterwards, so any number of threads can query it, alongside solves on the same
+ * dictionary, without locking.
+ */
+public class PatternIndex {
+
+    public static final char WILDCARD = '?';
+
+    private static final int LETTERS = 27;          // 'a' to 'z', then the apostrophe
+
+    private static volatile long blackhole;         // keeps the timed results alive in main
+
+    private final String[][] words;                 // [length] words of that length, in id order
+    private final int[][] ids;                      // [length] their word ids
+    private final long[][][] postings;              // [length][position * LETTERS + letter], null if no word has it
+
+    public PatternIndex(WordDictionary dictionary) {
+        // count first so each bucket is allocated once
+        int[] sizes = new int[dictionary.getMaxChars() + 1];
+        String[] all = new String[dictionary.wordIdCount()];
+        for (int id = 0; id < all.length; id++) {
+            String word = dictionary.word(id);
+            if (word.length() < sizes.length && dictionary.isWord(word)) {     // skip words removed since
+                all[id] = word;
+                sizes[word.length()]++;
+            }
+        }
+
+        words = new String[sizes.length][];
+        ids = new int[sizes.length][];
+        postings = new long[sizes.length][][];
+        for (int length = 0; length < sizes.length; length++) {
+            words[length] = new String[sizes[length]];
+            ids[length] = new int[sizes[length]];
+            postings[length] = new long[length * LETTERS][];
+        }
+        int[] filled = new int[sizes.length];
+        for (int id = 0; id < all.length; id++) {
+            String word = all[id];
+            if (word == null) {
+                continue;
+            }
+            int length = word.length();
+            int i = filled[length]++;
+            words[length][i] = word;
+            ids[length][i] = id;
+            long[][] bucket = postings[length];
+            for (int pos = 0; pos < length; pos++) {
+                int letter = letter(word.charAt(pos));
+                if (letter < 0) {
+                    continue;
+                }
+                int slot = pos * LETTERS + letter;
+                if (bucket[slot] == null) {
+                    bucket[slot] = new long[(sizes[length] + 63) >>> 6];
+                }
+                bucket[slot][i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    // index of c in the bit sets, or -1 if it has none
+    private static int letter(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return c == '\'' ? 26 : -1;
+    }
+
+    // words in the bucket for pattern's length that match it, as bits over the bucket, or null if none can
+    private long[] matchBits(CharSequence pattern) {
+        int length = pattern.length();
+        if (length >= words.length || words[length].length == 0) {
+            return null;
+        }
+        long[][] bucket = postings[length];
+        long[] bits = null;
+        boolean unindexed = false;
+        for (int pos = 0; pos < length; pos++) {
+            char c = pattern.charAt(pos);
+            if (c == WILDCARD) {
+                continue;
+            }
+            int letter = letter(c);
+            if (letter < 0) {
+                unindexed = true;
+                continue;
+            }
+            long[] posting = bucket[pos * LETTERS + letter];
+            if (posting == null) {
+                return null;
+            }
+            if (bits == null) {
+                bits = posting.clone();
+            } else {
+                for (int k = 0; k < bits.length; k++) {
+                    bits[k] &= posting[k];
+                }
+            }
+        }
+        if (bits == null) {
+            bits = allOf(words[length].length);
+        }
+        if (unindexed) {
+            checkEach(pattern, words[length], bits);
+        }
+        return bits;
+    }
+
+    private static long[] allOf(int n) {
+        long[] bits = new long[(n + 63) >>> 6];
+        Arrays.fill(bits, -1L);
+        if ((n & 63) != 0) {
+            bits[bits.length - 1] = (1L << n) - 1;
+        }
+        return bits;
+    }
+
+    // clear the bits of words that differ from pattern at a letter with no bit set
+    private static void checkEach(CharSequence pattern, String[] bucket, long[] bits) {
+        for (int i = nextSetBit(bits, 0); i >= 0; i = nextSetBit(bits, i + 1)) {
+            String word = bucket[i];
+            for (int pos = 0; pos < word.length(); pos++) {
+                char c = pattern.charAt(pos);
+                if (c != WILDCARD && letter(c) < 0 && word.charAt(pos) != c) {
+                    bits[i >>> 6] &= ~(1L << i);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int k = from >>> 6;
+        if (k >= bits.length) {
+            return -1;
+        }
+        long word = bits[k] & (-1L << from);
+        while (word == 0) {
+            if (++k == bits.length) {
+                return -1;
+            }
+            word = bits[k];
+        }
+        return (k << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    // the words matching pattern, in id order; '?' matches any one character
+    public List<String> match(CharSequence pattern) {
+        long[] bits = matchBits(pattern);
+        if (bits == null) {
+            return new ArrayList<>();
+        }
+        String[] bucket = words[pattern.length()];
+        List<String> result = new ArrayList<>();
+        for (int i = nextSetBit(bits, 0); i >= 0; i = nextSetBit(bits, i + 1)) {
+            result.add(bucket[i]);
+        }
+        return result;
+    }
+
+    // word ids of the words matching pattern, ascending
+    public int[] matchIds(CharSequence pattern) {
+        long[] bits = matchBits(pattern);
+        if (bits == null) {
+            return new int[0];
+        }
+        int[] bucket = ids[pattern.length()];
+        int[] result = new int[count(bits)];
+        int n = 0;
+        for (int i = nextSetBit(bits, 0); i >= 0; i = nextSetBit(bits, i + 1)) {
+            result[n++] = bucket[i];
+        }
+        return result;
+    }
+
+    // number of words matching pattern, without listing them
+    public int count(CharSequence pattern) {
+        long[] bits = matchBits(pattern);
+        return bits == null ? 0 : count(bits);
+    }
+
+    private static int count(long[] bits) {
+        int n = 0;
+        for (long word : bits) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+
+    // number of words with length characters
+    public int countOfLength(int length) {
+        return length >= 0 && length < words.length ? words[length].length : 0;
+    }
+
+    /**
+     * java PatternIndex [-repeat 100000] pattern...
+     * <p>
+     * Prints the words matching each pattern and how long one query takes on average.
+     */
+    public static void main(String[] args) throws Exception {
+        int repeat = 100_000;
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-repeat":
+                    repeat = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    patterns.add(args[i]);
+            }
+        }
+
+        WordDictionary dictionary = MappedDawg.load("dictionary.txt", "dictionary.dawg");
+        long buildStart = System.nanoTime();
+        PatternIndex index = new PatternIndex(dictionary);
+        System.out.println(String.format(Locale.ROOT, "Index built in %dms",
+                (System.nanoTime() - buildStart) / 1_000_000));
+
+        for (String pattern : patterns) {
+            List<String> matches = index.match(pattern);
+            long startTime = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                blackhole += index.count(pattern);
+            }
+            double micros = (System.nanoTime() - startTime) / 1e3 / repeat;
+            System.out.println(String.format(Locale.ROOT, "%s: %d words, %.2fus per count", pattern,
+                    matches.size(), micros));
+            System.out.println(matches.size() <= 20 ? matches.toString()
+                    : matches.subList(0, 20).toString().replace("]", ", ...]"));
+        }
+    }
+}
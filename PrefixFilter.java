@@ -0,0 +1,274 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+/**
+ * Says from the first three letters of a ray whether it can hold any word at all,
+ * so hopeless rays are dropped before the dictionary is ever asked.
+ * <p>
+ * When built, the filter walks a cursor over every string of up to three letters and
+ * folds the answers into one dense table indexed by three letter symbols.  A ray is
+ * worth scanning if its first letter is a word, its first two letters are a word, or
+ * its first three letters are a prefix; anything else can't contain a word starting at
+ * its first cell.  Reading the table costs three array reads per ray, and
+ * viableDirections() does it for all eight directions of a whole row at once, leaving
+ * most cells of a random grid with no dictionary work at all.
+ * <p>
+ * A second bit of the table answers the same for words of three letters or more, which
+ * only needs the first three letters to be a prefix; solves with a minimum word length
+ * of 3 or more use it to skip the rays whose only words are "a", "i" and the like.
+ * <p>
+ * Letters other than 'a' to 'z' and the apostrophe are never ruled out.
+ * <p>
+ * On packed grids the row pass can run on the Vector API: vector/VectorPrefixFilter.java
+ * looks up a whole strip of cells per direction at once.  The API is still an incubator
+ * module, so that class is compiled on its own and found by reflection; without it, or
+ * when the JVM is not started with --add-modules jdk.incubator.vector, or with
+ * -Dwordpuzzle.vector=false, the scalar loop below runs instead and gives the same masks.
+ */
+public class PrefixFilter {
+
+    // symbols: 'a' to 'z', the apostrophe, then off the grid and any other character
+    static final int END = 27;
+    static final int OTHER = 28;
+    static final int SYMBOLS = 29;
+
+    private static final byte[] SYMBOL = new byte[256];        // symbol of each 8-bit character
+
+    static {
+        Arrays.fill(SYMBOL, (byte) OTHER);
+        for (char c = 'a'; c <= 'z'; c++) {
+            SYMBOL[c] = (byte) (c - 'a');
+        }
+        SYMBOL['\''] = 26;
+        SYMBOL[PackedGrid.BORDER] = END;
+    }
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // bits of each table entry
+    private static final int ANY_WORD = 1;
+    private static final int LONG_WORD = 2;         // a word of LONG_LENGTH or more letters
+    private static final int LONG_LENGTH = 3;
+
+    // the Vector API row pass, or null if it can't be used in this JVM
+    private static final Constructor<? extends RowPass> VECTOR_PASS = vectorPass();
+
+    private final byte[] viable;
+    private final RowPass rowPass;              // null to use the scalar loop
+
+    /**
+     * Fills masks for one row of a packed grid exactly as the scalar loop would;
+     * bit is ANY_WORD or LONG_WORD.
+     */
+    interface RowPass {
+        void viableDirections(PackedGrid grid, int row, int bit, byte[] masks);
+    }
+
+    public PrefixFilter(WordDictionary dictionary) {
+        viable = new byte[SYMBOLS * SYMBOLS * SYMBOLS];
+        WordDictionary.Cursor cursor = dictionary.cursor();
+        for (int a = 0; a < SYMBOLS; a++) {
+            for (int b = 0; b < SYMBOLS; b++) {
+                for (int c = 0; c < SYMBOLS; c++) {
+                    int bits = 0;
+                    if (check(cursor, a, b, c)) {
+                        bits |= ANY_WORD;
+                    }
+                    if (checkLong(cursor, a, b, c)) {
+                        bits |= LONG_WORD;
+                    }
+                    viable[(a * SYMBOLS + b) * SYMBOLS + c] = (byte) bits;
+                }
+            }
+        }
+        rowPass = newRowPass(this);
+    }
+
+    private PrefixFilter(byte[] viable) {
+        this.viable = viable;
+        this.rowPass = null;
+    }
+
+    private static Constructor<? extends RowPass> vectorPass() {
+        if (!Boolean.parseBoolean(System.getProperty("wordpuzzle.vector", "true"))) {
+            return null;
+        }
+        try {
+            return Class.forName("VectorPrefixFilter").asSubclass(RowPass.class).getConstructor(PrefixFilter.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;                        // not compiled, or jdk.incubator.vector not added
+        }
+    }
+
+    private static RowPass newRowPass(PrefixFilter filter) {
+        if (VECTOR_PASS == null) {
+            return null;
+        }
+        try {
+            return VECTOR_PASS.newInstance(filter);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // the same table without the Vector API pass, e.g. to compare the two
+    PrefixFilter scalar() {
+        return new PrefixFilter(viable);
+    }
+
+    // whether packed rows go through the Vector API pass
+    boolean isVectorized() {
+        return rowPass != null;
+    }
+
+    // the table, for the vector pass: entry (a * 29 + b) * 29 + c holds the ANY_WORD and LONG_WORD bits
+    byte[] table() {
+        return viable;
+    }
+
+    // whether a ray starting with symbols a, b, c can hold a word
+    private static boolean check(WordDictionary.Cursor cursor, int a, int b, int c) {
+        cursor.start();
+        int result = step(cursor, a);
+        if (result < 0) {
+            result = step(cursor, b);
+        }
+        if (result < 0) {
+            result = step(cursor, c);
+        }
+        return result != 0;
+    }
+
+    // whether a ray starting with symbols a, b, c can hold a word of three or more letters
+    private static boolean checkLong(WordDictionary.Cursor cursor, int a, int b, int c) {
+        if (a == OTHER || b == OTHER || c == OTHER) {
+            return true;
+        }
+        if (a == END || b == END || c == END) {
+            return false;
+        }
+        cursor.start();
+        return cursor.advance(letter(a)) != WordDictionary.NOT_PREFIX
+                && cursor.advance(letter(b)) != WordDictionary.NOT_PREFIX
+                && cursor.advance(letter(c)) != WordDictionary.NOT_PREFIX;
+    }
+
+    /*
+     * One more symbol: 1 if the ray can hold a word, 0 if it can't, -1 if the next
+     * symbol decides.  Three letters that are a prefix are as far as the table looks.
+     */
+    private static int step(WordDictionary.Cursor cursor, int symbol) {
+        if (symbol == OTHER) {
+            return 1;                           // not known to the table, so let the dictionary decide
+        }
+        if (symbol == END) {
+            return 0;                           // the ray ended without a word
+        }
+        int result = cursor.advance(letter(symbol));
+        if (result == WordDictionary.NOT_PREFIX) {
+            return 0;
+        }
+        if (result == WordDictionary.WORD || cursor.length() == 3) {
+            return 1;                           // a short word, or a three letter prefix
+        }
+        return -1;
+    }
+
+    private static char letter(int symbol) {
+        return symbol == 26 ? '\'' : (char) ('a' + symbol);
+    }
+
+    static int symbol(char c) {
+        return c < 256 ? SYMBOL[c] : OTHER;
+    }
+
+    // whether a ray whose first three cells hold these symbols (END past the edge) can hold a word
+    public boolean isViable(int first, int second, int third) {
+        return (viable[(first * SYMBOLS + second) * SYMBOLS + third] & ANY_WORD) != 0;
+    }
+
+    /**
+     * Bit d of masks[col] is set if the ray from (row, col) in Direction.values()[d]
+     * can hold a word; masks needs room for one entry per column.
+     */
+    public void viableDirections(WordPuzzle puzzle, int row, byte[] masks) {
+        viableDirections(puzzle, row, 1, masks);
+    }
+
+    // the same, counting only words of at least minLength letters
+    public void viableDirections(WordPuzzle puzzle, int row, int minLength, byte[] masks) {
+        int bit = minLength >= LONG_LENGTH ? LONG_WORD : ANY_WORD;
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        for (int col = 0; col < columns; col++) {
+            int mask = 0;
+            int first = symbol(puzzle.getChar(row, col));
+            for (Direction direction : DIRECTIONS) {
+                int t = row + direction.dRow;
+                int s = col + direction.dCol;
+                int second = END;
+                int third = END;
+                if (t >= 0 && t < rows && s >= 0 && s < columns) {
+                    second = symbol(puzzle.getChar(t, s));
+                    t += direction.dRow;
+                    s += direction.dCol;
+                    if (t >= 0 && t < rows && s >= 0 && s < columns) {
+                        third = symbol(puzzle.getChar(t, s));
+                    }
+                }
+                if ((viable[(first * SYMBOLS + second) * SYMBOLS + third] & bit) != 0) {
+                    mask |= 1 << direction.ordinal();
+                }
+            }
+            masks[col] = (byte) mask;
+        }
+    }
+
+    // packed grid version; the border reads as END, and one cell past it is never needed
+    public void viableDirections(PackedGrid grid, int row, byte[] masks) {
+        viableDirections(grid, row, 1, masks);
+    }
+
+    public void viableDirections(PackedGrid grid, int row, int minLength, byte[] masks) {
+        int bit = minLength >= LONG_LENGTH ? LONG_WORD : ANY_WORD;
+        if (rowPass != null) {
+            rowPass.viableDirections(grid, row, bit, masks);
+        } else {
+            viableDirections(grid, row, bit, masks, 0, grid.getColumns());
+        }
+    }
+
+    // scalar loop over columns [fromCol, toCol) of row; the vector pass uses it for the edges it can't load
+    void viableDirections(PackedGrid grid, int row, int bit, byte[] masks, int fromCol, int toCol) {
+        byte[] cells = grid.cells();
+        int start = grid.index(row, fromCol);
+        for (int col = fromCol; col < toCol; col++, start++) {
+            int mask = 0;
+            int first = SYMBOL[cells[start] & 0xFF];
+            for (Direction direction : DIRECTIONS) {
+                int step = grid.step(direction);
+                int second = SYMBOL[cells[start + step] & 0xFF];
+                int third = second == END ? END : SYMBOL[cells[start + 2 * step] & 0xFF];
+                if ((viable[(first * SYMBOLS + second) * SYMBOLS + third] & bit) != 0) {
+                    mask |= 1 << direction.ordinal();
+                }
+            }
+            masks[col] = (byte) mask;
+        }
+    }
+
+    // masks for every cell, row after row
+    public byte[] viableDirections(WordPuzzle puzzle) {
+        int columns = puzzle.getColumns();
+        byte[] masks = new byte[puzzle.getRows() * columns];
+        byte[] row = new byte[columns];
+        for (int r = 0; r < puzzle.getRows(); r++) {
+            viableDirections(puzzle, r, row);
+            System.arraycopy(row, 0, masks, r * columns, columns);
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,260 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills large puzzles in parallel, the same letters every time for the same seed.
+ * <p>
+ * The cells are numbered row by row and cut into blocks of BLOCK_CELLS.  Before any
+ * filling starts, one SplittableRandom made from the seed is split once per block, in
+ * block order, on the calling thread; each block is then filled from its own stream on
+ * whichever thread picks it up.  Block boundaries and streams depend only on the seed
+ * and the grid size, so the grid is identical for any pool and any number of threads.
+ * <p>
+ * Letters are drawn from a Letters distribution in constant time per cell.
+ */
+public class PuzzleGenerator {
+
+    private static final int BLOCK_CELLS = 1 << 16;
+
+    private final Letters letters;
+    private final ForkJoinPool pool;
+
+    public PuzzleGenerator() {
+        this(Letters.uniform());
+    }
+
+    public PuzzleGenerator(Letters letters) {
+        this(letters, ForkJoinPool.commonPool());
+    }
+
+    public PuzzleGenerator(Letters letters, ForkJoinPool pool) {
+        this.letters = letters;
+        this.pool = pool;
+    }
+
+    /**
+     * Which letters to draw and how often, sampled with Walker's alias method: pick a
+     * column at random, then keep its own letter or take its alias.
+     */
+    public static class Letters {
+
+        // relative frequency of 'a' to 'z' in English text, in percent
+        private static final double[] ENGLISH = {
+                8.167, 1.492, 2.782, 4.253, 12.702, 2.228, 2.015, 6.094, 6.966, 0.153, 0.772, 4.025, 2.406,
+                6.749, 7.507, 1.929, 0.095, 5.987, 6.327, 9.056, 2.758, 0.978, 2.360, 0.150, 1.974, 0.074
+        };
+
+        private final char[] symbols;
+        private final double[] keep;            // chance of keeping the column's own letter
+        private final int[] alias;              // column to use otherwise
+
+        // letters.charAt(i) is drawn in proportion to weights[i]
+        public Letters(String letters, double... weights) {
+            int n = letters.length();
+            if (n == 0 || weights.length != n) {
+                throw new IllegalArgumentException("Need one weight for every letter");
+            }
+            double total = 0;
+            for (double weight : weights) {
+                if (!(weight >= 0)) {
+                    throw new IllegalArgumentException("Letter weights must not be negative");
+                }
+                total += weight;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("At least one letter needs a weight");
+            }
+
+            symbols = letters.toCharArray();
+            keep = new double[n];
+            alias = new int[n];
+            double[] scaled = new double[n];
+            Deque<Integer> small = new ArrayDeque<>();
+            Deque<Integer> large = new ArrayDeque<>();
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights[i] * n / total;
+                alias[i] = i;
+                (scaled[i] < 1 ? small : large).push(i);
+            }
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.pop();
+                int more = large.pop();
+                keep[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] -= 1 - scaled[less];
+                (scaled[more] < 1 ? small : large).push(more);
+            }
+            // whatever is left is 1 give or take rounding
+            for (int i : small) {
+                keep[i] = 1;
+            }
+            for (int i : large) {
+                keep[i] = 1;
+            }
+        }
+
+        // 'a' to 'z', all equally likely
+        public static Letters uniform() {
+            double[] weights = new double[26];
+            Arrays.fill(weights, 1);
+            return new Letters("abcdefghijklmnopqrstuvwxyz", weights);
+        }
+
+        // 'a' to 'z' as often as they appear in English text, which gives far more words per cell
+        public static Letters english() {
+            return new Letters("abcdefghijklmnopqrstuvwxyz", ENGLISH.clone());
+        }
+
+        // a packed grid stores letters as bytes and uses 0 for its border
+        void checkPackable() {
+            for (char c : symbols) {
+                if (c == 0 || c > 0xFF) {
+                    throw new IllegalArgumentException("Letter does not fit in a packed grid: " + (int) c);
+                }
+            }
+        }
+
+        char next(SplittableRandom rand) {
+            int i = rand.nextInt(symbols.length);
+            return rand.nextDouble() < keep[i] ? symbols[i] : symbols[alias[i]];
+        }
+    }
+
+    // where the letters of one grid go
+    private interface CellWriter {
+        void set(int row, int column, char c);
+    }
+
+    /*
+     * Not the same grid as new WordPuzzle(rows, columns, seed), which draws from one
+     * java.util.Random in row order; grids generated here match each other for a seed,
+     * not that constructor's.
+     */
+    public WordPuzzle generate(int rows, int columns, long seed) {
+        char[][] grid = new char[rows][columns];
+        fill(rows, columns, seed, (row, column, c) -> grid[row][column] = c);
+        return new WordPuzzle(grid);
+    }
+
+    /*
+     * The same letters as generate() with the same arguments, straight into a packed
+     * grid; throws IllegalArgumentException if the letters include one a packed grid
+     * can't hold, i.e. 0 or above 0xFF.
+     */
+    public PackedGrid generatePacked(int rows, int columns, long seed) {
+        letters.checkPackable();
+        PackedGrid grid = new PackedGrid(rows, columns);
+        fill(rows, columns, seed, grid::setChar);
+        return grid;
+    }
+
+    private void fill(int rows, int columns, long seed, CellWriter writer) {
+        long cellCount = (long) rows * columns;
+        int blocks = (int) ((cellCount + BLOCK_CELLS - 1) / BLOCK_CELLS);
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            streams[b] = root.split();              // serially, so block b always gets the same stream
+        }
+        if (blocks > 0) {
+            pool.invoke(new BlockTask(writer, streams, columns, cellCount, 0, blocks));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class BlockTask extends RecursiveAction {
+        private final CellWriter writer;
+        private final SplittableRandom[] streams;
+        private final int columns;
+        private final long cellCount;
+        private final int fromBlock;
+        private final int toBlock;
+
+        BlockTask(CellWriter writer, SplittableRandom[] streams, int columns, long cellCount,
+                  int fromBlock, int toBlock) {
+            this.writer = writer;
+            this.streams = streams;
+            this.columns = columns;
+            this.cellCount = cellCount;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock > 1) {
+                int mid = (fromBlock + toBlock) >>> 1;
+                invokeAll(new BlockTask(writer, streams, columns, cellCount, fromBlock, mid),
+                        new BlockTask(writer, streams, columns, cellCount, mid, toBlock));
+                return;
+            }
+            SplittableRandom rand = streams[fromBlock];
+            long first = (long) fromBlock * BLOCK_CELLS;
+            long end = Math.min(cellCount, first + BLOCK_CELLS);
+            int row = (int) (first / columns);
+            int column = (int) (first % columns);
+            for (long cell = first; cell < end; cell++) {
+                writer.set(row, column, letters.next(rand));
+                if (++column == columns) {
+                    column = 0;
+                    row++;
+                }
+            }
+        }
+    }
+
+    /**
+     * java PuzzleGenerator [-rows 10000] [-columns 10000] [-seed 1] [-threads n] [-english]
+     * <p>
+     * Times one generation and prints a checksum, which is the same for every -threads.
+     */
+    public static void main(String[] args) {
+        int rows = 10_000;
+        int columns = 10_000;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Letters letters = Letters.uniform();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "-columns":
+                    columns = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-english":
+                    letters = Letters.english();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long startTime = System.nanoTime();
+        PackedGrid grid = new PuzzleGenerator(letters, pool).generatePacked(rows, columns, seed);
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        pool.shutdown();
+
+        long checksum = 0;
+        for (byte b : grid.cells()) {
+            checksum = checksum * 31 + b;
+        }
+        System.out.println(String.format(Locale.ROOT, "%dx%d grid in %.1fms on %d threads, checksum %016x",
+                rows, columns, millis, threads, checksum));
+    }
+}
@@ -0,0 +1,415 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Remembers solve results so a grid that has been solved before is answered without
+ * scanning it again.
+ * <p>
+ * Results are keyed by the grid's letters, the dictionary version and the SolveOptions.
+ * The letters are hashed into 64 bits for the map, and a copy of them is kept in the
+ * key so two grids that happen to share a hash are still told apart.  Entries are held
+ * in least recently used order and the oldest are evicted once their estimated size
+ * passes maxBytes.  All of this sits behind one lock, held only for the map operations;
+ * solves on a miss run outside it, so two threads missing the same grid at once may
+ * both solve it.
+ * <p>
+ * With a line cache (maxLineBytes above 0), a miss is solved line by line instead: the
+ * letters along every row, column and diagonal in each direction are looked up as a
+ * String, and only lines not seen before are scanned.  Grids that differ in a few cells
+ * share most of their lines, so a changed grid re-scans just the lines through the
+ * changed cells.  The line results are put back in the order a Solver finds them, and
+ * matches of the same word share one String.
+ * <p>
+ * Against a ConcurrentDictionary, the cache follows its version: the first solve after
+ * a change builds a new Solver, and results for older versions age out of the LRU.
+ */
+public class SolveCache {
+
+    private final ConcurrentDictionary live;            // null for a dictionary that never changes
+    private final long maxLineBytes;
+    private final Lru<Key, SolveResult> results;
+    private volatile Engine engine;
+
+    // the solver for one dictionary version, with its line results
+    private static class Engine {
+        final Solver solver;
+        final long version;
+        final Lru<String, int[]> lines;                 // null without a line cache
+        final String[] words;                           // one String per word id, made when first needed
+
+        Engine(Solver solver, long version, long maxLineBytes) {
+            this.solver = solver;
+            this.version = version;
+            this.lines = maxLineBytes > 0 ? new Lru<>(maxLineBytes) : null;
+            this.words = maxLineBytes > 0 ? new String[solver.getDictionary().wordIdCount()] : null;
+        }
+
+        // threads may race to fill a slot, but Strings are immutable, so either copy will do
+        String word(int wordId) {
+            String word = words[wordId];
+            if (word == null) {
+                word = solver.getDictionary().word(wordId);
+                words[wordId] = word;
+            }
+            return word;
+        }
+    }
+
+    public SolveCache(WordDictionary dictionary, long maxBytes) {
+        this(dictionary, maxBytes, 0);
+    }
+
+    public SolveCache(WordDictionary dictionary, long maxBytes, long maxLineBytes) {
+        this(new Solver(dictionary), maxBytes, maxLineBytes);
+    }
+
+    // solve misses with an existing Solver, e.g. one a service already has
+    public SolveCache(Solver solver, long maxBytes) {
+        this(solver, maxBytes, 0);
+    }
+
+    public SolveCache(Solver solver, long maxBytes, long maxLineBytes) {
+        this.live = null;
+        this.maxLineBytes = maxLineBytes;
+        this.results = new Lru<>(maxBytes);
+        this.engine = new Engine(solver, 0, maxLineBytes);
+    }
+
+    public SolveCache(ConcurrentDictionary dictionary, long maxBytes, long maxLineBytes) {
+        this.live = dictionary;
+        this.maxLineBytes = maxLineBytes;
+        this.results = new Lru<>(maxBytes);
+        ConcurrentDictionary.Snapshot snapshot = dictionary.current();
+        this.engine = new Engine(new Solver(snapshot.getDictionary()), snapshot.getVersion(), maxLineBytes);
+    }
+
+    // the engine for the dictionary as it is now
+    private Engine engine() {
+        Engine current = engine;
+        if (live == null || live.getVersion() == current.version) {
+            return current;
+        }
+        synchronized (this) {
+            ConcurrentDictionary.Snapshot snapshot = live.current();
+            if (engine.version != snapshot.getVersion()) {
+                engine = new Engine(new Solver(snapshot.getDictionary()), snapshot.getVersion(), maxLineBytes);
+            }
+            return engine;
+        }
+    }
+
+    public SolveResult solve(WordPuzzle puzzle) {
+        return solve(puzzle, SolveOptions.ALL);
+    }
+
+    // the cached result, or a fresh solve that is then cached; the elapsed time is this call's
+    public SolveResult solve(WordPuzzle puzzle, SolveOptions options) {
+        long startTime = System.nanoTime();
+        Engine current = engine();
+        Key key = new Key(puzzle, current.version, options);
+        SolveResult result = results.get(key);
+        if (result == null) {
+            result = current.lines != null ? solveByLines(current, puzzle, options)
+                    : current.solver.solve(puzzle, options);
+            results.put(key, result, key.sizeInBytes() + sizeInBytes(result));
+        }
+        return new SolveResult(result.getMatches(), result.getCount(), System.nanoTime() - startTime);
+    }
+
+    // the cached result for this grid and options, or null
+    public SolveResult get(WordPuzzle puzzle, SolveOptions options) {
+        return results.get(new Key(puzzle, engine().version, options));
+    }
+
+    // cache a result solved elsewhere, against the same dictionary, with all its matches collected
+    public void put(WordPuzzle puzzle, SolveOptions options, SolveResult result) {
+        Key key = new Key(puzzle, engine().version, options);
+        results.put(key, result, key.sizeInBytes() + sizeInBytes(result));
+    }
+
+    // rough heap size of a result: each Match with its String
+    private static long sizeInBytes(SolveResult result) {
+        long bytes = 64;
+        for (Match match : result.getMatches()) {
+            bytes += 96 + 2L * match.getLength();
+        }
+        return bytes;
+    }
+
+    /*
+     * Solve by looking up every line of the grid in the line cache.  The words are
+     * gathered direction by direction, then put in the Solver's order (cell by cell,
+     * directions in order, shortest first) with a stable counting sort on the start
+     * cell, since each cell's words already arrive in direction and length order.
+     */
+    private static SolveResult solveByLines(Engine engine, WordPuzzle puzzle, SolveOptions options) {
+        long startTime = System.nanoTime();
+        WordDictionary.Cursor cursor = engine.solver.getDictionary().cursor();
+        WordDictionary.Cursor allowed = options.getAllowlist() != null ? options.getAllowlist().cursor() : null;
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        char[] line = new char[Math.max(rows, columns)];
+        List<int[]> lineHits = new ArrayList<>();
+        int[] found = new int[64];                      // (cell, direction, line, hit) for each word kept
+        int size = 0;
+        int[] perCell = new int[rows * columns + 1];
+        Direction[] directions = Direction.values();
+        for (Direction direction : directions) {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
+                    if (inside(row - direction.dRow, col - direction.dCol, rows, columns)) {
+                        continue;                       // not the first cell of a line
+                    }
+                    int n = 0;
+                    for (int t = row, s = col; inside(t, s, rows, columns); t += direction.dRow, s += direction.dCol) {
+                        line[n++] = puzzle.getChar(t, s);
+                    }
+                    String text = new String(line, 0, n);
+                    int[] hits = engine.lines.get(text);
+                    if (hits == null) {
+                        hits = scanLine(cursor, line, n);
+                        engine.lines.put(text, hits, 64 + 2L * n + 16 + 4L * hits.length);
+                    }
+                    int lineIndex = lineHits.size();
+                    lineHits.add(hits);
+                    for (int k = 0; k < hits.length; k += 3) {
+                        int offset = hits[k];
+                        int length = hits[k + 1];
+                        if (length < options.getMinLength() || length > options.getMaxLength()
+                                || (allowed != null && !isWord(allowed, line, offset, length))) {
+                            continue;
+                        }
+                        int cell = (row + offset * direction.dRow) * columns + col + offset * direction.dCol;
+                        if (size + 4 > found.length) {
+                            found = Arrays.copyOf(found, found.length * 2);
+                        }
+                        found[size++] = cell;
+                        found[size++] = direction.ordinal();
+                        found[size++] = lineIndex;
+                        found[size++] = k;
+                        perCell[cell + 1]++;
+                    }
+                }
+            }
+        }
+
+        for (int cell = 0; cell < rows * columns; cell++) {
+            perCell[cell + 1] += perCell[cell];
+        }
+        int count = size / 4;
+        int[] order = new int[count];
+        for (int f = 0; f < size; f += 4) {
+            order[perCell[found[f]]++] = f;
+        }
+        int kept = (int) Math.min(count, options.getLimit());
+        List<Match> matches = new ArrayList<>(kept);
+        for (int i = 0; i < kept; i++) {
+            int f = order[i];
+            int cell = found[f];
+            int[] hits = lineHits.get(found[f + 2]);
+            int wordId = hits[found[f + 3] + 2];
+            matches.add(new Match(engine.word(wordId), wordId, cell / columns, cell % columns,
+                    directions[found[f + 1]]));
+        }
+        return new SolveResult(matches, kept, System.nanoTime() - startTime);
+    }
+
+    private static boolean inside(int row, int col, int rows, int columns) {
+        return row >= 0 && row < rows && col >= 0 && col < columns;
+    }
+
+    // every word starting anywhere in line[0, n), as (offset, length, word id) triples
+    private static int[] scanLine(WordDictionary.Cursor cursor, char[] line, int n) {
+        int[] hits = new int[12];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            cursor.start();
+            for (int j = i; j < n; j++) {
+                int result = cursor.advance(line[j]);
+                if (result == WordDictionary.NOT_PREFIX) {
+                    break;
+                }
+                if (result == WordDictionary.WORD) {
+                    if (size + 3 > hits.length) {
+                        hits = Arrays.copyOf(hits, hits.length * 2);
+                    }
+                    hits[size++] = i;
+                    hits[size++] = j - i + 1;
+                    hits[size++] = cursor.wordId();
+                }
+            }
+        }
+        return Arrays.copyOf(hits, size);
+    }
+
+    private static boolean isWord(WordDictionary.Cursor cursor, char[] line, int offset, int length) {
+        cursor.start();
+        int result = WordDictionary.NOT_PREFIX;
+        for (int i = offset; i < offset + length; i++) {
+            result = cursor.advance(line[i]);
+        }
+        return result == WordDictionary.WORD;
+    }
+
+    public long getHits() {
+        return results.hits();
+    }
+
+    public long getMisses() {
+        return results.misses();
+    }
+
+    public long getEvictions() {
+        return results.evictions();
+    }
+
+    public long sizeInBytes() {
+        return results.bytes();
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    public long getLineHits() {
+        Lru<String, int[]> lines = engine.lines;
+        return lines != null ? lines.hits() : 0;
+    }
+
+    public long getLineMisses() {
+        Lru<String, int[]> lines = engine.lines;
+        return lines != null ? lines.misses() : 0;
+    }
+
+    public String stats() {
+        return String.format(Locale.ROOT, "%d entries, %.1fMB, %d hits, %d misses, %d evictions, "
+                        + "%d line hits, %d line misses",
+                size(), sizeInBytes() / (1024.0 * 1024), getHits(), getMisses(), getEvictions(),
+                getLineHits(), getLineMisses());
+    }
+
+    // a grid's letters, the dictionary version and the options
+    private static class Key {
+        private final char[] cells;
+        private final int columns;
+        private final long version;
+        private final SolveOptions options;
+        private final int hash;
+
+        Key(WordPuzzle puzzle, long version, SolveOptions options) {
+            int rows = puzzle.getRows();
+            columns = puzzle.getColumns();
+            cells = new char[rows * columns];
+            long h = 0xcbf29ce484222325L ^ columns;
+            int i = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++, i++) {
+                    char c = puzzle.getChar(row, col);
+                    cells[i] = c;
+                    h = (h ^ c) * 0x100000001b3L;       // FNV-1a, a character at a time
+                }
+            }
+            h ^= version * 0x9e3779b97f4a7c15L;
+            h ^= h >>> 29;
+            this.version = version;
+            this.options = options;
+            this.hash = (int) (h ^ (h >>> 32)) * 31 + options.hashCode();
+        }
+
+        long sizeInBytes() {
+            return 64 + 2L * cells.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && columns == other.columns && version == other.version
+                    && options.equals(other.options) && Arrays.equals(cells, other.cells);
+        }
+    }
+
+    // least recently used map bounded by the estimated bytes of its entries
+    private static class Lru<K, V> {
+        private final long maxBytes;
+        private final LinkedHashMap<K, Slot<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        private static class Slot<V> {
+            final V value;
+            final long bytes;
+
+            Slot(V value, long bytes) {
+                this.value = value;
+                this.bytes = bytes;
+            }
+        }
+
+        Lru(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized V get(K key) {
+            Slot<V> slot = map.get(key);
+            if (slot == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return slot.value;
+        }
+
+        synchronized void put(K key, V value, long size) {
+            if (size > maxBytes) {
+                return;                                 // would evict everything else
+            }
+            Slot<V> old = map.put(key, new Slot<>(value, size));
+            bytes += size - (old != null ? old.bytes : 0);
+            Iterator<Map.Entry<K, Slot<V>>> oldest = map.entrySet().iterator();
+            while (bytes > maxBytes) {
+                bytes -= oldest.next().getValue().bytes;
+                oldest.remove();
+                evictions++;
+            }
+        }
+
+        synchronized long hits() {
+            return hits;
+        }
+
+        synchronized long misses() {
+            return misses;
+        }
+
+        synchronized long evictions() {
+            return evictions;
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
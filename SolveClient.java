@@ -0,0 +1,124 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for SolveService: sends random grids to /solve from several threads at
+ * once, then prints throughput, the latency seen by the client and the server's /stats.
+ * <pre>
+ *   java SolveClient [-port 8080] [-threads 16] [-requests 2000] [-rows 20] [-columns 20] [-seed 1]
+ * </pre>
+ * Request i always sends the grid generated from seed + i, so runs can be compared.
+ */
+public class SolveClient {
+
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        int threads = 16;
+        int requests = 2000;
+        int rows = 20;
+        int columns = 20;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-requests":
+                    requests = Integer.parseInt(args[++i]);
+                    break;
+                case "-rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "-columns":
+                    columns = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // build the bodies up front so only the round trips are timed
+        PuzzleGenerator generator = new PuzzleGenerator();
+        String[] bodies = new String[requests];
+        for (int i = 0; i < requests; i++) {
+            bodies[i] = gridText(generator.generate(rows, columns, seed + i));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI solveUri = URI.create("http://localhost:" + port + "/solve");
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        long startTime = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < bodies.length) {
+                    HttpRequest request = HttpRequest.newBuilder(solveUri)
+                            .POST(HttpRequest.BodyPublishers.ofString(bodies[i]))
+                            .build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - sent;
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.println(String.format(Locale.ROOT,
+                "%d requests of %dx%d on %d threads in %.2fs: %.0f req/s, %d failed, p50 %.3fms, p99 %.3fms",
+                requests, rows, columns, threads, seconds, requests / seconds, failures.get(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99)));
+
+        HttpRequest stats = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/stats")).build();
+        System.out.println("Server: " + client.send(stats, HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    // one row per line, the format /solve reads
+    private static String gridText(WordPuzzle puzzle) {
+        StringBuilder sb = new StringBuilder(puzzle.getRows() * (puzzle.getColumns() + 1));
+        for (int r = 0; r < puzzle.getRows(); r++) {
+            for (int c = 0; c < puzzle.getColumns(); c++) {
+                sb.append(puzzle.getChar(r, c));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // value at fraction (0 to 1) of sorted nanosecond latencies, in ms
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, rank)] / 1e6;
+    }
+}
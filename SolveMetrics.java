@@ -0,0 +1,326 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Optional counters for the hash tables and solvers.
+ * <p>
+ * Off unless the JVM is started with -Dwordpuzzle.metrics=true.  ENABLED is a static
+ * final constant, so when it is false the JIT drops every guarded call and the hot
+ * paths cost nothing extra.  When on, each thread counts into its own plain fields,
+ * and the per-thread counters are only summed when someone reads them: through the
+ * SolveMetricsMXBean registered as "wordpuzzle:type=SolveMetrics", through dump(), or
+ * every N seconds to stdout when -Dwordpuzzle.metrics.dumpSeconds=N is also set.
+ * Readings taken while solves are running are approximate.
+ * <p>
+ * The counters of a thread that has ended are folded into a shared total the next
+ * time counters are read or a new thread starts counting, so thread-per-request
+ * executors don't leave one entry behind per request.
+ */
+public class SolveMetrics implements SolveMetricsMXBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("wordpuzzle.metrics");
+
+    private static final int PROBE_BUCKETS = 33;           // probe lengths 1..32, last bucket is 33 and over
+    private static final int LATENCY_BUCKETS = 64;          // power of two buckets of nanoseconds
+    private static final int TABLE_SAMPLES = 64;            // table size history kept for reading
+
+    private static final SolveMetrics INSTANCE = new SolveMetrics();
+
+    // counters written only by their own thread
+    private static class Counters {
+        final long[] probes = new long[PROBE_BUCKETS];
+        final long[] wordsByDirection = new long[Direction.values().length];
+        final long[] solveLatency = new long[LATENCY_BUCKETS];
+        long lookups;
+        long prunes;
+        long solves;
+
+        void addTo(Counters total) {
+            for (int i = 0; i < PROBE_BUCKETS; i++) {
+                total.probes[i] += probes[i];
+            }
+            for (int d = 0; d < wordsByDirection.length; d++) {
+                total.wordsByDirection[d] += wordsByDirection[d];
+            }
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                total.solveLatency[i] += solveLatency[i];
+            }
+            total.lookups += lookups;
+            total.prunes += prunes;
+            total.solves += solves;
+        }
+    }
+
+    // a counting thread and its counters; the thread is only weakly held so it can be collected
+    private static class Registration {
+        final WeakReference<Thread> thread;
+        final Counters counters;
+
+        Registration(Thread thread, Counters counters) {
+            this.thread = new WeakReference<>(thread);
+            this.counters = counters;
+        }
+
+        boolean ended() {
+            Thread t = thread.get();
+            return t == null || !t.isAlive();
+        }
+    }
+
+    private static final List<Registration> LIVE = new ArrayList<>();      // guarded by LIVE
+    private static final Counters ENDED = new Counters();                   // threads gone, guarded by LIVE
+    private static final ThreadLocal<Counters> COUNTERS = ThreadLocal.withInitial(() -> {
+        Counters counters = new Counters();
+        synchronized (LIVE) {
+            retireEnded();
+            LIVE.add(new Registration(Thread.currentThread(), counters));
+        }
+        return counters;
+    });
+
+    /*
+     * Fold the counters of ended threads into ENDED and forget them.  Seeing a thread
+     * not alive happens-after everything it did, so its plain fields are safe to read.
+     */
+    private static void retireEnded() {
+        for (Iterator<Registration> it = LIVE.iterator(); it.hasNext(); ) {
+            Registration registration = it.next();
+            if (registration.ended()) {
+                registration.counters.addTo(ENDED);
+                it.remove();
+            }
+        }
+    }
+
+    // sum of every thread's counters so far
+    private static Counters totals() {
+        Counters total = new Counters();
+        synchronized (LIVE) {
+            retireEnded();
+            ENDED.addTo(total);
+            for (Registration registration : LIVE) {
+                registration.counters.addTo(total);
+            }
+        }
+        return total;
+    }
+
+    // rehashing is rare, so shared atomics are fine
+    private static final AtomicLong rehashes = new AtomicLong();
+    private static final AtomicLong rehashNanos = new AtomicLong();
+    private static final Deque<String> tableSamples = new ArrayDeque<>();
+
+    static {
+        if (ENABLED) {
+            register();
+            long dumpSeconds = Long.getLong("wordpuzzle.metrics.dumpSeconds", 0);
+            if (dumpSeconds > 0) {
+                startDumping(dumpSeconds, System.out);
+            }
+        }
+    }
+
+    private SolveMetrics() {
+    }
+
+    public static SolveMetrics get() {
+        return INSTANCE;
+    }
+
+    // register the MXBean with the platform MBean server
+    public static void register() {
+        try {
+            ObjectName name = new ObjectName("wordpuzzle:type=SolveMetrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean", e);
+        }
+    }
+
+    // print dump() to out every periodSeconds on a daemon thread
+    public static void startDumping(long periodSeconds, PrintStream out) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "solve-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> out.println(dump()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // ---- recording; callers check ENABLED first ----
+
+    // one hash table lookup that looked at probes slots
+    static void probe(int probes) {
+        COUNTERS.get().probes[Math.min(probes, PROBE_BUCKETS) - 1]++;
+    }
+
+    // counts kept locally by one solver scan, then added in once by scan()
+    static class ScanCounts {
+        long lookups;
+        long prunes;
+        final long[] wordsByDirection = new long[Direction.values().length];
+    }
+
+    static void scan(ScanCounts scan) {
+        Counters counters = COUNTERS.get();
+        counters.lookups += scan.lookups;
+        counters.prunes += scan.prunes;
+        for (int d = 0; d < scan.wordsByDirection.length; d++) {
+            counters.wordsByDirection[d] += scan.wordsByDirection[d];
+        }
+    }
+
+    static void solve(long nanos) {
+        Counters counters = COUNTERS.get();
+        counters.solves++;
+        counters.solveLatency[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))]++;
+    }
+
+    // a table finished resizing; its sizes afterwards are kept as a sample
+    static void rehash(String table, long nanos, int occupied, int size, int capacity) {
+        rehashes.incrementAndGet();
+        rehashNanos.addAndGet(nanos);
+        String sample = String.format(Locale.ROOT, "%tT %s occupied=%d size=%d capacity=%d",
+                System.currentTimeMillis(), table, occupied, size, capacity);
+        synchronized (tableSamples) {
+            if (tableSamples.size() == TABLE_SAMPLES) {
+                tableSamples.removeFirst();
+            }
+            tableSamples.addLast(sample);
+        }
+    }
+
+    // ---- reading ----
+
+    @Override
+    public long[] getProbeHistogram() {
+        return totals().probes;
+    }
+
+    @Override
+    public double getMeanProbeLength() {
+        long[] histogram = getProbeHistogram();
+        long lookups = 0;
+        long probes = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            lookups += histogram[i];
+            probes += histogram[i] * (i + 1);
+        }
+        return lookups == 0 ? 0 : (double) probes / lookups;
+    }
+
+    @Override
+    public long getLookups() {
+        return totals().lookups;
+    }
+
+    @Override
+    public long getPrefixPrunes() {
+        return totals().prunes;
+    }
+
+    @Override
+    public long getSolves() {
+        return totals().solves;
+    }
+
+    @Override
+    public long[] getWordsByDirection() {
+        return totals().wordsByDirection;
+    }
+
+    @Override
+    public long getRehashCount() {
+        return rehashes.get();
+    }
+
+    @Override
+    public double getRehashMillis() {
+        return rehashNanos.get() / 1e6;
+    }
+
+    @Override
+    public String[] getTableSamples() {
+        synchronized (tableSamples) {
+            return tableSamples.toArray(new String[0]);
+        }
+    }
+
+    @Override
+    public double getSolveLatencyP50Millis() {
+        return latencyPercentile(0.50);
+    }
+
+    @Override
+    public double getSolveLatencyP99Millis() {
+        return latencyPercentile(0.99);
+    }
+
+    @Override
+    public double getSolveLatencyMaxMillis() {
+        return latencyPercentile(1.0);
+    }
+
+    // upper bound of the bucket holding the given fraction of solves, in ms
+    private double latencyPercentile(double fraction) {
+        long[] total = totals().solveLatency;
+        long solves = 0;
+        for (long count : total) {
+            solves += count;
+        }
+        long rank = (long) Math.ceil(fraction * solves);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += total[i];
+            if (seen >= rank && seen > 0) {
+                return Math.scalb(1.0, i + 1) / 1e6;
+            }
+        }
+        return 0;
+    }
+
+    // everything above as text
+    public static String dump() {
+        SolveMetrics m = INSTANCE;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "solves=%d lookups=%d prunes=%d p50=%.3fms p99=%.3fms max=%.3fms%n",
+                m.getSolves(), m.getLookups(), m.getPrefixPrunes(),
+                m.getSolveLatencyP50Millis(), m.getSolveLatencyP99Millis(), m.getSolveLatencyMaxMillis()));
+
+        sb.append("words by direction:");
+        long[] words = m.getWordsByDirection();
+        for (Direction direction : Direction.values()) {
+            sb.append(' ').append(direction).append('=').append(words[direction.ordinal()]);
+        }
+        sb.append(String.format(Locale.ROOT, "%nprobes: mean=%.3f", m.getMeanProbeLength()));
+        long[] probes = m.getProbeHistogram();
+        for (int i = 0; i < probes.length; i++) {
+            if (probes[i] != 0) {
+                sb.append(' ').append(i + 1).append(i == probes.length - 1 ? "+:" : ":").append(probes[i]);
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "%nrehashes=%d (%.1fms)", m.getRehashCount(), m.getRehashMillis()));
+        for (String sample : m.getTableSamples()) {
+            sb.append(System.lineSeparator()).append("  ").append(sample);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,35 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+// JMX view of SolveMetrics; all values are totals since the JVM started
+public interface SolveMetricsMXBean {
+
+    // count of lookups by number of slots probed, index 0 for one probe; the last bucket collects the rest
+    long[] getProbeHistogram();
+
+    double getMeanProbeLength();
+
+    // dictionary cursor steps taken by the solvers
+    long getLookups();
+
+    // rays cut short because they stopped being a prefix
+    long getPrefixPrunes();
+
+    long getSolves();
+
+    // words found, indexed by Direction.ordinal()
+    long[] getWordsByDirection();
+
+    long getRehashCount();
+
+    double getRehashMillis();
+
+    // the most recent table sizes after a rehash, oldest first
+    String[] getTableSamples();
+
+    double getSolveLatencyP50Millis();
+
+    double getSolveLatencyP99Millis();
+
+    double getSolveLatencyMaxMillis();
+}
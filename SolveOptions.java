@@ -0,0 +1,168 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * What a solve should report: words from minLength to maxLength characters, at most
+ * limit of them, and only words in the allowlist if there is one.
+ * <p>
+ * The solvers apply these while scanning rather than filtering afterwards.  A ray stops
+ * at maxLength characters, or as soon as its letters stop being a prefix of an allowed
+ * word, which a second cursor over the allowlist tracks step for step with the
+ * dictionary's.  An allowlist also gets its own PrefixFilter, so rays that can't start
+ * an allowed word are never scanned; rays that can only hold words shorter than three
+ * letters are dropped the same way when minLength is 3 or more.  The whole solve stops
+ * at the limit.  Options are immutable; the with methods return changed copies, and an
+ * allowlist is copied into a Dawg of its words when it is set, so changing the
+ * dictionary it came from afterwards doesn't change the options.
+ * <p>
+ * Options are equal when they ask for the same words, so they can key a cache: two
+ * allowlists holding the same words compare equal however they were built.  Each copy
+ * is fingerprinted with its word count and two 64-bit hashes summed over its words,
+ * which gives the hash code and rules out most unequal allowlists at once; when the
+ * fingerprints match the copies themselves are compared.
+ */
+public class SolveOptions {
+
+    // every word, no limit
+    public static final SolveOptions ALL = new SolveOptions(1, Integer.MAX_VALUE, Long.MAX_VALUE, null);
+
+    private final int minLength;
+    private final int maxLength;
+    private final long limit;
+    private final Dawg allowlist;               // frozen copy of the allowlist, or null to allow every word
+    private final PrefixFilter allowFilter;     // rays that can hold an allowed word
+    private final long[] allowPrint;            // word count and content hashes of the allowlist, or null
+
+    private SolveOptions(int minLength, int maxLength, long limit, Dawg allowlist) {
+        this(minLength, maxLength, limit, allowlist, allowlist != null ? new PrefixFilter(allowlist) : null,
+                allowlist != null ? fingerprint(allowlist) : null);
+    }
+
+    private SolveOptions(int minLength, int maxLength, long limit, Dawg allowlist,
+                         PrefixFilter allowFilter, long[] allowPrint) {
+        if (minLength < 1 || maxLength < minLength) {
+            throw new IllegalArgumentException("Bad word length range " + minLength + " to " + maxLength);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.limit = limit;
+        this.allowlist = allowlist;
+        this.allowFilter = allowFilter;
+        this.allowPrint = allowPrint;
+    }
+
+    // copy of the words words holds now; a Dawg never changes, so it is kept as it is
+    private static Dawg freeze(WordDictionary words) {
+        if (words == null || words instanceof Dawg) {
+            return (Dawg) words;
+        }
+        TreeSet<String> sorted = new TreeSet<>();
+        for (int id = 0; id < words.wordIdCount(); id++) {
+            String word = words.word(id);
+            if (word != null && words.isWord(word)) {       // skip ids of removed words
+                sorted.add(word);
+            }
+        }
+        return Dawg.fromWords(sorted);
+    }
+
+    // word count and two hashes of the words, each word's hashes mixed and then added up
+    private static long[] fingerprint(Dawg words) {
+        long sum1 = 0;
+        long sum2 = 0;
+        for (int id = 0; id < words.wordCount(); id++) {
+            String word = words.word(id);
+            long h1 = 0xcbf29ce484222325L;          // FNV-1a
+            long h2 = word.length();
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                h1 = (h1 ^ c) * 0x100000001b3L;
+                h2 = h2 * 0x9e3779b97f4a7c15L + c;
+            }
+            sum1 += mix(h1);
+            sum2 += mix(h2);
+        }
+        return new long[] {words.wordCount(), sum1, sum2};
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    public SolveOptions withMinLength(int minLength) {
+        return new SolveOptions(minLength, maxLength, limit, allowlist, allowFilter, allowPrint);
+    }
+
+    public SolveOptions withMaxLength(int maxLength) {
+        return new SolveOptions(minLength, maxLength, limit, allowlist, allowFilter, allowPrint);
+    }
+
+    // stop after this many matches
+    public SolveOptions withLimit(long limit) {
+        return new SolveOptions(minLength, maxLength, limit, allowlist, allowFilter, allowPrint);
+    }
+
+    // only report words that are in allowlist now; null allows every word again
+    public SolveOptions withAllowlist(WordDictionary allowlist) {
+        return new SolveOptions(minLength, maxLength, limit, freeze(allowlist));
+    }
+
+    // only report these words, in any order
+    public SolveOptions withAllowlist(Collection<? extends CharSequence> words) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (CharSequence word : words) {
+            sorted.add(word.toString());
+        }
+        return withAllowlist(Dawg.fromWords(sorted));
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    // the frozen copy of the allowlist, or null
+    public WordDictionary getAllowlist() {
+        return allowlist;
+    }
+
+    // prefix filter over the allowlist, built once with it; null without an allowlist
+    PrefixFilter getAllowFilter() {
+        return allowFilter;
+    }
+
+    // equal options ask for the same words; fingerprints rule out most different allowlists cheaply
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SolveOptions)) {
+            return false;
+        }
+        SolveOptions other = (SolveOptions) o;
+        return minLength == other.minLength && maxLength == other.maxLength && limit == other.limit
+                && Arrays.equals(allowPrint, other.allowPrint)
+                && (allowlist == null || allowlist.sameWords(other.allowlist));     // prints match, so both or neither
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minLength, maxLength, limit, Arrays.hashCode(allowPrint));
+    }
+}
@@ -0,0 +1,52 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.Collections;
+import java.util.List;
+
+// outcome of one solve: the matches (when collected), how many there were, and the search time
+public class SolveResult {
+
+    private final List<Match> matches;
+    private final long count;
+    private final long elapsedNanos;
+
+    public SolveResult(List<Match> matches, long count, long elapsedNanos) {
+        this.matches = Collections.unmodifiableList(matches);
+        this.count = count;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // empty when the matches were sent to a sink instead of collected
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    // print the words, one puzzle row per line, as the menu algorithms do
+    public void print(WordPuzzle puzzle) {
+        int row = 0;
+        for (Match match : matches) {
+            while (row < match.getRow()) {
+                System.out.println();
+                row++;
+            }
+            System.out.print(match.getWord() + " ");
+        }
+        while (row < puzzle.getRows()) {
+            System.out.println();
+            row++;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Long-running solve service: loads the dictionary once and solves grids sent over HTTP
+ * on localhost.
+ * <pre>
+ *   java SolveService [-port 8080] [-batchWindow 0] [-batchSize 32] [-solvers n] [-cacheMB 0]
+ *
+ *   POST /solve   body: one grid row per line   reply: {"rows":..,"columns":..,"count":..,"words":[..]}
+ *   GET  /stats   request counts and p50/p99 latency in ms, as JSON
+ * </pre>
+ * Each request is handled on its own virtual thread when the JVM has them (Java 21 and
+ * later), and on a cached platform thread pool otherwise.  Small grids are not solved on
+ * the request thread: they are queued, and a solver thread takes the first one waiting
+ * plus everything else already queued, up to the batch size, or arriving within the
+ * batch window (in microseconds, none by default).  The grids of a batch are stacked
+ * into one PackedGrid with a border row between them and solved in a single scan, so
+ * they share one cursor, one set of row buffers and one prefix filter pass, and the
+ * matches are handed back to each grid's request.  Under load the queue fills while a
+ * batch is solved and batches grow by themselves; when idle a grid is solved at once.
+ * Grids of BATCH_MAX_CELLS and over skip the queue and are solved on all cores.  With
+ * -cacheMB, a SolveCache of that size, using the service's Solver, answers grids that
+ * have been solved before without queueing them at all.
+ * <p>
+ * Request bodies over MAX_BODY_BYTES are refused with 413.  Latencies go into a
+ * lock-free histogram with eight buckets per power of two, so the reported percentiles
+ * are upper bounds within 12.5%, over every request since the start.
+ */
+public class SolveService {
+
+    private static final int BATCH_MAX_CELLS = 100 * 100;
+    private static final int MAX_BODY_BYTES = 4 << 20;      // about a 2000x2000 grid
+    private static final int SUB_BUCKET_BITS = 3;           // latency buckets per power of two, as a power of two
+
+    private final Solver solver;
+    private final ParallelSolver parallelSolver;
+    private final long batchWindowNanos;
+    private final int batchSize;
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final SolveCache cache;             // null when caching is off
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedRequests = new AtomicLong();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(64 << SUB_BUCKET_BITS);
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    // one queued grid and where its result goes
+    private static class Job {
+        final WordPuzzle puzzle;
+        final CompletableFuture<SolveResult> result = new CompletableFuture<>();
+
+        Job(WordPuzzle puzzle) {
+            this.puzzle = puzzle;
+        }
+    }
+
+    public SolveService(WordDictionary dictionary, long batchWindowNanos, int batchSize) {
+        this(dictionary, batchWindowNanos, batchSize, 0);
+    }
+
+    public SolveService(WordDictionary dictionary, long batchWindowNanos, int batchSize, long cacheBytes) {
+        this.solver = new Solver(dictionary);
+        this.parallelSolver = new ParallelSolver(dictionary);
+        this.batchWindowNanos = batchWindowNanos;
+        this.batchSize = batchSize;
+        this.cache = cacheBytes > 0 ? new SolveCache(solver, cacheBytes) : null;
+    }
+
+    // start serving on localhost:port with the given number of batch solver threads
+    public HttpServer start(int port, int solvers) throws IOException {
+        for (int i = 0; i < solvers; i++) {
+            Thread thread = new Thread(this::solveBatches, "solve-batcher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(requestExecutor());
+        server.start();
+        return server;
+    }
+
+    // a virtual thread per task where the JVM has them; looked up by reflection so this still runs on Java 17
+    static ExecutorService requestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "solve-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "{\"error\":\"use POST\"}");
+                return;
+            }
+            String body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                errors.incrementAndGet();
+                send(exchange, 413, "{\"error\":\"grid over " + MAX_BODY_BYTES + " bytes\"}");
+                return;
+            }
+            WordPuzzle puzzle;
+            try {
+                puzzle = parseGrid(body);
+            } catch (IllegalArgumentException e) {
+                errors.incrementAndGet();
+                send(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+                return;
+            }
+            SolveResult result = solve(puzzle);
+            send(exchange, 200, toJson(puzzle, result));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.incrementAndGet();
+            send(exchange, 503, "{\"error\":\"interrupted\"}");
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            send(exchange, 500, "{\"error\":" + quote(String.valueOf(e)) + "}");
+        } finally {
+            requests.incrementAndGet();
+            recordLatency(System.nanoTime() - startTime);
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, statsJson());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // answer from the cache, or solve and remember the result
+    SolveResult solve(WordPuzzle puzzle) throws InterruptedException {
+        if (cache == null) {
+            return solveUncached(puzzle);
+        }
+        SolveResult result = cache.get(puzzle, SolveOptions.ALL);
+        if (result == null) {
+            result = solveUncached(puzzle);
+            cache.put(puzzle, SolveOptions.ALL, result);
+        }
+        return result;
+    }
+
+    // solve on all cores, or queue for a batch solver thread and wait
+    private SolveResult solveUncached(WordPuzzle puzzle) throws InterruptedException {
+        if ((long) puzzle.getRows() * puzzle.getColumns() >= BATCH_MAX_CELLS) {
+            return parallelSolver.solve(puzzle);
+        }
+        Job job = new Job(puzzle);
+        queue.put(job);
+        try {
+            return job.result.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solve failed", e.getCause());
+        }
+    }
+
+    // batch solver thread: gather whatever arrives within the window, then solve it all
+    private void solveBatches() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Job job = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (job == null) {
+                        break;
+                    }
+                    batch.add(job);
+                }
+                batches.incrementAndGet();
+                batchedRequests.addAndGet(batch.size());
+                solveBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Solve a batch in one scan: the grids are stacked in a PackedGrid as wide as the
+     * widest, with a border row between grids and border cells right of the narrower
+     * ones, so no ray crosses from one grid into another.  Each match goes back to its
+     * grid by row.  A grid with letters a packed grid can't hold is solved on its own.
+     */
+    private void solveBatch(List<Job> batch) {
+        List<Job> stacked = new ArrayList<>(batch.size());
+        int rows = -1;
+        int columns = 0;
+        for (Job job : batch) {
+            if (isPackable(job.puzzle)) {
+                stacked.add(job);
+                rows += job.puzzle.getRows() + 1;
+                columns = Math.max(columns, job.puzzle.getColumns());
+            } else {
+                solveAlone(job);
+            }
+        }
+        if (stacked.isEmpty()) {
+            return;
+        }
+        try {
+            long startTime = System.nanoTime();
+            PackedGrid grid = new PackedGrid(rows, columns);
+            int[] jobOfRow = new int[rows];
+            int[] firstRow = new int[stacked.size()];
+            List<List<Match>> matches = new ArrayList<>(stacked.size());
+            int row = 0;
+            for (int k = 0; k < stacked.size(); k++) {
+                WordPuzzle puzzle = stacked.get(k).puzzle;
+                firstRow[k] = row;
+                for (int r = 0; r < puzzle.getRows(); r++, row++) {
+                    jobOfRow[row] = k;
+                    for (int c = 0; c < puzzle.getColumns(); c++) {
+                        grid.setChar(row, c, puzzle.getChar(r, c));
+                    }
+                }
+                if (row < rows) {
+                    jobOfRow[row++] = k;        // the border row between grids holds no words
+                }
+                matches.add(new ArrayList<>());
+            }
+            solver.scanRows(grid, 0, rows, (chars, length, wordId, r, column, direction) -> {
+                int k = jobOfRow[r];
+                matches.get(k).add(new Match(new String(chars, 0, length), wordId, r - firstRow[k], column, direction));
+            });
+            long elapsed = System.nanoTime() - startTime;
+            for (int k = 0; k < stacked.size(); k++) {
+                List<Match> found = matches.get(k);
+                stacked.get(k).result.complete(new SolveResult(found, found.size(), elapsed));
+            }
+        } catch (RuntimeException e) {
+            for (Job job : stacked) {
+                job.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void solveAlone(Job job) {
+        try {
+            job.result.complete(solver.solve(job.puzzle));
+        } catch (RuntimeException e) {
+            job.result.completeExceptionally(e);
+        }
+    }
+
+    // whether every letter fits in a packed grid: not 0, which is the border, and not over 0xFF
+    private static boolean isPackable(WordPuzzle puzzle) {
+        for (int r = 0; r < puzzle.getRows(); r++) {
+            for (int c = 0; c < puzzle.getColumns(); c++) {
+                char ch = puzzle.getChar(r, c);
+                if (ch == 0 || ch > 0xFF) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // the body as text, or null if it is longer than MAX_BODY_BYTES
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] block = new byte[8192];
+        int read;
+        while ((read = in.read(block)) > 0) {
+            if (body.size() + read > MAX_BODY_BYTES) {
+                return null;
+            }
+            body.write(block, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // one grid row per line; spaces between letters and blank lines are ignored
+    static WordPuzzle parseGrid(String text) {
+        List<char[]> grid = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            String letters = line.replaceAll("\\s", "");
+            if (!letters.isEmpty()) {
+                grid.add(letters.toCharArray());
+            }
+        }
+        if (grid.isEmpty()) {
+            throw new IllegalArgumentException("Empty grid");
+        }
+        return new WordPuzzle(grid.toArray(new char[0][]));
+    }
+
+    private static String toJson(WordPuzzle puzzle, SolveResult result) {
+        StringBuilder sb = new StringBuilder(64 + 48 * result.getMatches().size());
+        sb.append("{\"rows\":").append(puzzle.getRows())
+                .append(",\"columns\":").append(puzzle.getColumns())
+                .append(",\"count\":").append(result.getCount())
+                .append(",\"solveMicros\":").append(result.getElapsedNanos() / 1000)
+                .append(",\"words\":[");
+        boolean first = true;
+        for (Match match : result.getMatches()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"word\":").append(quote(match.getWord()))
+                    .append(",\"row\":").append(match.getRow())
+                    .append(",\"column\":").append(match.getColumn())
+                    .append(",\"direction\":\"").append(match.getDirection()).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        latencyBuckets.incrementAndGet(latencyBucket(nanos));
+        maxLatency.accumulateAndGet(nanos, Math::max);
+    }
+
+    // values under 2^SUB_BUCKET_BITS get a bucket each, larger ones one of eight per power of two
+    static int latencyBucket(long nanos) {
+        if (nanos < (1 << SUB_BUCKET_BITS)) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    // the largest value that falls in bucket
+    static long latencyBucketTop(int bucket) {
+        if (bucket < (1 << SUB_BUCKET_BITS)) {
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long sub = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+        return (1L << exponent) + ((sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    // latency at fraction (0 to 1) of the requests so far, in ms; an upper bound within 12.5%
+    double latencyPercentile(double fraction) {
+        long[] counts = new long[latencyBuckets.length()];
+        long n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyBuckets.get(i);
+            n += counts[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(latencyBucketTop(i), maxLatency.get()) / 1e6;
+            }
+        }
+        return maxLatency.get() / 1e6;
+    }
+
+    String statsJson() {
+        long batchCount = batches.get();
+        String cacheStats = cache == null ? "" : String.format(Locale.ROOT,
+                ",\"cacheHits\":%d,\"cacheMisses\":%d,\"cacheEvictions\":%d,\"cacheBytes\":%d",
+                cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.sizeInBytes());
+        return String.format(Locale.ROOT,
+                "{\"requests\":%d,\"errors\":%d,\"batches\":%d,\"meanBatchSize\":%.2f,"
+                        + "\"p50Millis\":%.3f,\"p99Millis\":%.3f,\"maxMillis\":%.3f%s}",
+                requests.get(), errors.get(), batchCount,
+                batchCount == 0 ? 0.0 : (double) batchedRequests.get() / batchCount,
+                latencyPercentile(0.50), latencyPercentile(0.99), latencyPercentile(1.0), cacheStats);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        long batchWindowMicros = 0;
+        int batchSize = 32;
+        int solvers = Runtime.getRuntime().availableProcessors();
+        long cacheMB = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "-batchWindow":
+                    batchWindowMicros = Long.parseLong(args[++i]);
+                    break;
+                case "-batchSize":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-solvers":
+                    solvers = Integer.parseInt(args[++i]);
+                    break;
+                case "-cacheMB":
+                    cacheMB = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long loadStart = System.nanoTime();
+        WordDictionary dictionary = MappedDawg.load("dictionary.txt", "dictionary.dawg");
+        SolveService service = new SolveService(dictionary, batchWindowMicros * 1000, batchSize, cacheMB << 20);
+        service.start(port, solvers);
+        System.out.println(String.format(Locale.ROOT, "Dictionary loaded in %dms; listening on http://localhost:%d/solve",
+                (System.nanoTime() - loadStart) / 1_000_000, port));
+
+        // print the latency figures every 10 seconds while there is traffic
+        long lastRequests = 0;
+        while (true) {
+            Thread.sleep(10_000);
+            long now = service.requests.get();
+            if (now != lastRequests) {
+                System.out.println(service.statsJson());
+                lastRequests = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * The enhanced algorithm as a reusable engine: every cell is scanned in all eight
+ * directions with a dictionary cursor, and each ray stops as soon as it is no longer
+ * a prefix of any word.  A Solver may be shared, since each solve uses its own cursor.
+ * <p>
+ * Before a row is scanned, a PrefixFilter works out from the first three letters of
+ * each ray which directions can hold a word at all, and only those rays are handed to
+ * the cursor.  The filter is taken from the dictionary when the Solver is made, so make
+ * a new Solver after adding words to a dictionary.
+ * <p>
+ * SolveOptions narrow a solve to some word lengths, an allowlist or a number of
+ * matches, and are checked inside the scan loops so rays and solves end early.
+ */
+public class Solver {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte ALL_DIRECTIONS = (byte) 0xFF;
+
+    private final WordDictionary dictionary;
+    private final PrefixFilter filter;          // null to scan every ray
+
+    public Solver(WordDictionary dictionary) {
+        this(dictionary, new PrefixFilter(dictionary));
+    }
+
+    public Solver(WordDictionary dictionary, PrefixFilter filter) {
+        this.dictionary = dictionary;
+        this.filter = filter;
+    }
+
+    public WordDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // solve and keep every match
+    public SolveResult solve(WordPuzzle puzzle) {
+        return solve(puzzle, SolveOptions.ALL);
+    }
+
+    // solve and keep the matches options allow
+    public SolveResult solve(WordPuzzle puzzle, SolveOptions options) {
+        MatchSink.Collector collector = new MatchSink.Collector();
+        long startTime = System.nanoTime();
+        long count = scanRows(puzzle, 0, puzzle.getRows(), collector, options);
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(collector.getMatches(), count, elapsed);
+    }
+
+    // solve, handing each match to sink as it is found
+    public SolveResult solve(WordPuzzle puzzle, MatchSink sink) {
+        return solve(puzzle, sink, SolveOptions.ALL);
+    }
+
+    public SolveResult solve(WordPuzzle puzzle, MatchSink sink, SolveOptions options) {
+        long startTime = System.nanoTime();
+        long count = scanRows(puzzle, 0, puzzle.getRows(), sink, options);
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(Collections.emptyList(), count, elapsed);
+    }
+
+    // solve a packed grid and keep every match
+    public SolveResult solve(PackedGrid grid) {
+        return solve(grid, SolveOptions.ALL);
+    }
+
+    public SolveResult solve(PackedGrid grid, SolveOptions options) {
+        MatchSink.Collector collector = new MatchSink.Collector();
+        SolveResult result = solve(grid, collector, options);
+        return new SolveResult(collector.getMatches(), result.getCount(), result.getElapsedNanos());
+    }
+
+    public SolveResult solve(PackedGrid grid, MatchSink sink) {
+        return solve(grid, sink, SolveOptions.ALL);
+    }
+
+    public SolveResult solve(PackedGrid grid, MatchSink sink, SolveOptions options) {
+        long startTime = System.nanoTime();
+        long count = scanRows(grid, 0, grid.getRows(), sink, options);
+        long elapsed = System.nanoTime() - startTime;
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.solve(elapsed);
+        }
+        return new SolveResult(Collections.emptyList(), count, elapsed);
+    }
+
+    // scan every cell of rows [fromRow, toRow), returning the number of matches
+    long scanRows(WordPuzzle puzzle, int fromRow, int toRow, MatchSink sink) {
+        return scanRows(puzzle, fromRow, toRow, sink, SolveOptions.ALL);
+    }
+
+    // the same for the matches options allow, stopping once options.getLimit() are found
+    long scanRows(WordPuzzle puzzle, int fromRow, int toRow, MatchSink sink, SolveOptions options) {
+        WordDictionary.Cursor cursor = dictionary.cursor();
+        WordDictionary.Cursor allowed = options.getAllowlist() != null ? options.getAllowlist().cursor() : null;
+        char[] chars = new char[dictionary.getMaxChars()];
+        SolveMetrics.ScanCounts counts = SolveMetrics.ENABLED ? new SolveMetrics.ScanCounts() : null;
+        byte[] masks = new byte[puzzle.getColumns()];
+        long limit = options.getLimit();
+        long count = 0;
+        for (int row = fromRow; row < toRow && count < limit; row++) {
+            viableDirections(puzzle, row, options, masks);
+            for (int col = 0; col < puzzle.getColumns() && count < limit; col++) {
+                int mask = masks[col];
+                for (Direction direction : DIRECTIONS) {
+                    if ((mask & (1 << direction.ordinal())) != 0) {
+                        count += scanRay(puzzle, row, col, direction, cursor, allowed, chars, options,
+                                limit - count, sink, counts);
+                        if (count == limit) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.scan(counts);
+        }
+        return count;
+    }
+
+    // directions worth scanning from each cell of row; an allowlist's own filter rules out more
+    private void viableDirections(WordPuzzle puzzle, int row, SolveOptions options, byte[] masks) {
+        if (filter != null) {
+            PrefixFilter rayFilter = options.getAllowFilter() != null ? options.getAllowFilter() : filter;
+            rayFilter.viableDirections(puzzle, row, options.getMinLength(), masks);
+        } else {
+            Arrays.fill(masks, ALL_DIRECTIONS);
+        }
+    }
+
+    private void viableDirections(PackedGrid grid, int row, SolveOptions options, byte[] masks) {
+        if (filter != null) {
+            PrefixFilter rayFilter = options.getAllowFilter() != null ? options.getAllowFilter() : filter;
+            rayFilter.viableDirections(grid, row, options.getMinLength(), masks);
+        } else {
+            Arrays.fill(masks, ALL_DIRECTIONS);
+        }
+    }
+
+    // follow one ray until it leaves the grid, stops being an allowed prefix, reaches maxLength or finds budget words
+    private static int scanRay(WordPuzzle puzzle, int row, int col, Direction direction,
+                               WordDictionary.Cursor cursor, WordDictionary.Cursor allowed, char[] chars,
+                               SolveOptions options, long budget, MatchSink sink,
+                               SolveMetrics.ScanCounts counts) {
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        int minLength = options.getMinLength();
+        int maxLength = options.getMaxLength();
+        int found = 0;
+        cursor.start();
+        if (allowed != null) {
+            allowed.start();
+        }
+        int t = row;
+        int s = col;
+        int length = 0;
+        while (t >= 0 && t < rows && s >= 0 && s < columns && length < maxLength) {
+            char c = puzzle.getChar(t, s);
+            int result = advance(cursor, allowed, c);
+            if (SolveMetrics.ENABLED) {
+                counts.lookups++;
+            }
+            if (result == WordDictionary.NOT_PREFIX) {
+                if (SolveMetrics.ENABLED) {
+                    counts.prunes++;
+                }
+                break;
+            }
+            chars[length++] = c;
+            if (result == WordDictionary.WORD && length >= minLength) {
+                sink.found(chars, length, cursor.wordId(), row, col, direction);
+                found++;
+                if (SolveMetrics.ENABLED) {
+                    counts.wordsByDirection[direction.ordinal()]++;
+                }
+                if (found == budget) {
+                    break;
+                }
+            }
+            t += direction.dRow;
+            s += direction.dCol;
+        }
+        return found;
+    }
+
+    /*
+     * Extend the lookup by c.  With an allowlist the result is the lesser of the two
+     * cursors' (NOT_PREFIX < PREFIX < WORD); the allowlist is usually much smaller, so it
+     * goes first and the dictionary is only asked while it still says yes.
+     */
+    private static int advance(WordDictionary.Cursor cursor, WordDictionary.Cursor allowed, char c) {
+        if (allowed == null) {
+            return cursor.advance(c);
+        }
+        int result = allowed.advance(c);
+        return result == WordDictionary.NOT_PREFIX ? result : Math.min(result, cursor.advance(c));
+    }
+
+    // packed grid version of scanRows(): each ray is an index stepped by a stride until it hits the border
+    long scanRows(PackedGrid grid, int fromRow, int toRow, MatchSink sink) {
+        return scanRows(grid, fromRow, toRow, sink, SolveOptions.ALL);
+    }
+
+    long scanRows(PackedGrid grid, int fromRow, int toRow, MatchSink sink, SolveOptions options) {
+        WordDictionary.Cursor cursor = dictionary.cursor();
+        WordDictionary.Cursor allowed = options.getAllowlist() != null ? options.getAllowlist().cursor() : null;
+        char[] chars = new char[dictionary.getMaxChars()];
+        SolveMetrics.ScanCounts counts = SolveMetrics.ENABLED ? new SolveMetrics.ScanCounts() : null;
+        byte[] cells = grid.cells();
+        int[] steps = new int[DIRECTIONS.length];
+        for (Direction direction : DIRECTIONS) {
+            steps[direction.ordinal()] = grid.step(direction);
+        }
+        byte[] masks = new byte[grid.getColumns()];
+        int minLength = options.getMinLength();
+        int maxLength = options.getMaxLength();
+        long limit = options.getLimit();
+        long count = 0;
+        scan:
+        for (int row = fromRow; row < toRow && count < limit; row++) {
+            viableDirections(grid, row, options, masks);
+            int start = grid.index(row, 0);
+            for (int col = 0; col < grid.getColumns(); col++, start++) {
+                int mask = masks[col];
+                for (Direction direction : DIRECTIONS) {
+                    if ((mask & (1 << direction.ordinal())) == 0) {
+                        continue;
+                    }
+                    int step = steps[direction.ordinal()];
+                    cursor.start();
+                    if (allowed != null) {
+                        allowed.start();
+                    }
+                    int length = 0;
+                    byte b;
+                    for (int i = start; (b = cells[i]) != PackedGrid.BORDER && length < maxLength; i += step) {
+                        char c = (char) (b & 0xFF);
+                        int result = advance(cursor, allowed, c);
+                        if (SolveMetrics.ENABLED) {
+                            counts.lookups++;
+                        }
+                        if (result == WordDictionary.NOT_PREFIX) {
+                            if (SolveMetrics.ENABLED) {
+                                counts.prunes++;
+                            }
+                            break;
+                        }
+                        chars[length++] = c;
+                        if (result == WordDictionary.WORD && length >= minLength) {
+                            sink.found(chars, length, cursor.wordId(), row, col, direction);
+                            count++;
+                            if (SolveMetrics.ENABLED) {
+                                counts.wordsByDirection[direction.ordinal()]++;
+                            }
+                            if (count == limit) {
+                                break scan;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (SolveMetrics.ENABLED) {
+            SolveMetrics.scan(counts);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,326 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmark suite for the dictionaries and solvers, in the style of a JMH run: each
+ * benchmark gets warmup iterations that are thrown away, then measured iterations that
+ * report time per operation along with the allocation and GC figures JMH's gc profiler
+ * gives (bytes allocated per op, allocation rate, collections and GC time).
+ * <p>
+ * Puzzles are built from a fixed seed, so runs with the same arguments measure the
+ * same grids.  Usage:
+ * <pre>
+ *   java SolverBenchmark [-sizes 20,100,200,1000] [-seed 1] [-warmup 3] [-iterations 5] [-filter text]
+ * </pre>
+ * Run with a fixed heap (e.g. -Xms2g -Xmx2g) so results are comparable between builds.
+ */
+public class SolverBenchmark {
+
+    private static final String DICTIONARY = "dictionary.txt";
+    private static final String SNAPSHOT = "dictionary.dawg";
+    private static final int REGULAR_MAX_SIZE = 200;        // alg1 is quadratic in line length; skip it above this
+    private static final int PATH_MAX_SIZE = 200;           // path search runs seconds per solve above this
+    private static final int LOOKUPS = 1_000_000;           // lookups per single-lookup operation
+
+    private int[] sizes = {20, 100, 200, 1000};
+    private long seed = 1;
+    private int warmup = 3;
+    private int iterations = 5;
+    private String filter = "";
+
+    private final List<String> report = new ArrayList<>();
+    private static volatile long blackhole;                 // keeps results alive so nothing is optimized away
+
+    // one benchmarked operation; the returned value is consumed
+    interface Op {
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SolverBenchmark benchmark = new SolverBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.runAll();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-sizes":
+                    String[] parts = value.split(",");
+                    sizes = new int[parts.length];
+                    for (int k = 0; k < parts.length; k++) {
+                        sizes[k] = Integer.parseInt(parts[k].trim());
+                    }
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "-warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "-filter":
+                    filter = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private void runAll() throws Exception {
+        // dictionary build
+        run("build.makeTable", 1, () -> MyHashTable.makeTable().size());
+        run("build.charTable", 1, () -> CharHashTable.fromFile(DICTIONARY).size());
+        run("build.dawg", 1, () -> Dawg.fromFile(DICTIONARY).wordCount());
+        run("build.ahoCorasick", 1, () -> AhoCorasickSolver.fromFile(DICTIONARY).stateCount());
+        MappedDawg.load(DICTIONARY, SNAPSHOT);                  // make sure the snapshot is current first
+        run("build.snapshot", 1, () -> MappedDawg.load(DICTIONARY, SNAPSHOT).wordCount());
+
+        MyHashTable<String> table = MyHashTable.makeTable();
+        CharHashTable charTable = CharHashTable.fromFile(DICTIONARY);
+        Dawg dawg = Dawg.fromFile(DICTIONARY);
+        MappedDawg mapped = MappedDawg.load(DICTIONARY, SNAPSHOT);
+        AhoCorasickSolver ahoCorasick = AhoCorasickSolver.fromFile(DICTIONARY);
+        WordDictionary[] dictionaries = {table, charTable, dawg, mapped};
+        run("build.prefixFilter", 1, () -> new PrefixFilter(dawg).isViable(0, 0, 0) ? 1 : 0);
+
+        // single lookups, over words taken from the file and random strings
+        String[] probes = lookupProbes(dawg);
+        for (WordDictionary dictionary : dictionaries) {
+            String name = engineName(dictionary);
+            run("lookup.isWord." + name, LOOKUPS, () -> {
+                long hits = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    if (dictionary.isWord(probes[i & (probes.length - 1)])) {
+                        hits++;
+                    }
+                }
+                return hits;
+            });
+            WordDictionary.Cursor cursor = dictionary.cursor();
+            run("lookup.cursor." + name, LOOKUPS, () -> {
+                long hits = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    String probe = probes[i & (probes.length - 1)];
+                    cursor.start();
+                    int result = WordDictionary.PREFIX;
+                    for (int k = 0; k < probe.length() && result != WordDictionary.NOT_PREFIX; k++) {
+                        result = cursor.advance(probe.charAt(k));
+                    }
+                    if (result == WordDictionary.WORD) {
+                        hits++;
+                    }
+                }
+                return hits;
+            });
+        }
+
+        // narrowed solves: long words only, the first 100 matches, or words from a 1000 word allowlist
+        List<String> allowlist = new ArrayList<>();
+        Random rand = new Random(seed);
+        for (int i = 0; i < 1000; i++) {
+            allowlist.add(dawg.word(rand.nextInt(dawg.wordCount())));
+        }
+        SolveOptions[] narrowed = {
+                SolveOptions.ALL.withMinLength(4),
+                SolveOptions.ALL.withLimit(100),
+                SolveOptions.ALL.withAllowlist(allowlist)
+        };
+        String[] narrowedNames = {"min4", "limit100", "allowlist"};
+
+        // full solves
+        for (int size : sizes) {
+            WordPuzzle puzzle = new WordPuzzle(size, size, seed);
+            PackedGrid packed = PackedGrid.of(puzzle);
+            String grid = size + "x" + size;
+            if (size <= REGULAR_MAX_SIZE) {
+                run("solve.alg1." + grid, 1, () -> table.solveRegular(puzzle, new MatchSink.Counter()).getCount());
+            }
+            run("solve.ahoCorasick." + grid, 1, () -> ahoCorasick.solve(puzzle, new MatchSink.Counter()).getCount());
+            run("solve.ahoCorasick.packed." + grid, 1, () -> ahoCorasick.solve(packed, new MatchSink.Counter()).getCount());
+            for (WordDictionary dictionary : dictionaries) {
+                String name = engineName(dictionary);
+                Solver solver = new Solver(dictionary);
+                Solver unfiltered = new Solver(dictionary, null);
+                ParallelSolver parallel = new ParallelSolver(dictionary);
+                run("solve.alg2." + name + "." + grid, 1, () -> solver.solve(puzzle, new MatchSink.Counter()).getCount());
+                run("solve.alg2.unfiltered." + name + "." + grid, 1,
+                        () -> unfiltered.solve(puzzle, new MatchSink.Counter()).getCount());
+                run("solve.alg2.packed." + name + "." + grid, 1, () -> solver.solve(packed, new MatchSink.Counter()).getCount());
+                run("solve.parallel." + name + "." + grid, 1, () -> parallel.count(puzzle).getCount());
+            }
+            for (WordDictionary dictionary : new WordDictionary[] {table, dawg}) {
+                Solver solver = new Solver(dictionary);
+                for (int k = 0; k < narrowed.length; k++) {
+                    SolveOptions options = narrowed[k];
+                    run("solve.alg2." + narrowedNames[k] + "." + engineName(dictionary) + "." + grid, 1,
+                            () -> solver.solve(puzzle, new MatchSink.Counter(), options).getCount());
+                }
+            }
+            // the per-row direction masks alone, scalar against the Vector API pass when it is loaded
+            PrefixFilter vectorFilter = new PrefixFilter(dawg);
+            PrefixFilter scalarFilter = vectorFilter.scalar();
+            run("prefixFilter.rows.scalar." + grid, 1, () -> maskRows(scalarFilter, packed));
+            if (vectorFilter.isVectorized()) {
+                run("prefixFilter.rows.vector." + grid, 1, () -> maskRows(vectorFilter, packed));
+                Solver scalarSolver = new Solver(dawg, scalarFilter);
+                Solver vectorSolver = new Solver(dawg, vectorFilter);
+                run("prefixFilter.solve.scalar." + grid, 1, () -> scalarSolver.solve(packed, new MatchSink.Counter()).getCount());
+                run("prefixFilter.solve.vector." + grid, 1, () -> vectorSolver.solve(packed, new MatchSink.Counter()).getCount());
+            }
+            if (size <= PATH_MAX_SIZE) {
+                for (WordGraph graph : new WordGraph[] {dawg, mapped}) {
+                    String name = engineName(graph);
+                    PathSolver paths = new PathSolver(graph);
+                    run("solve.path." + name + "." + grid, 1, () -> paths.solve(packed).totalCount());
+                    run("solve.path.serial." + name + "." + grid, 1, () -> paths.solve(packed, 0, size).totalCount());
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-40s %5s %14s %14s %12s %10s %8s",
+                "Benchmark", "Cnt", "Score", "Units", "B/op", "MB/sec", "GC n/ms"));
+        for (String line : report) {
+            System.out.println(line);
+        }
+    }
+
+    // probe strings: every 7th dictionary word plus as many random lowercase strings
+    private String[] lookupProbes(Dawg dawg) throws IOException {
+        List<String> words = Files.readAllLines(Paths.get(DICTIONARY));
+        String[] probes = new String[1 << 15];
+        Random rand = new Random(seed);
+        for (int i = 0; i < probes.length; i++) {
+            if ((i & 1) == 0) {
+                probes[i] = words.get((i * 7) % words.size());
+            } else {
+                char[] chars = new char[1 + rand.nextInt(Math.min(8, dawg.getMaxChars()))];
+                for (int k = 0; k < chars.length; k++) {
+                    chars[k] = (char) ('a' + rand.nextInt(26));
+                }
+                probes[i] = new String(chars);
+            }
+        }
+        return probes;
+    }
+
+    // direction masks for every row of grid, returning the number of rays they keep
+    private static long maskRows(PrefixFilter filter, PackedGrid grid) {
+        byte[] masks = new byte[grid.getColumns()];
+        long rays = 0;
+        for (int row = 0; row < grid.getRows(); row++) {
+            filter.viableDirections(grid, row, masks);
+            for (byte mask : masks) {
+                rays += Integer.bitCount(mask & 0xFF);
+            }
+        }
+        return rays;
+    }
+
+    private static String engineName(WordDictionary dictionary) {
+        return dictionary.getClass().getSimpleName();
+    }
+
+    private void run(String name, int opsPerCall, Op op) throws Exception {
+        if (!name.contains(filter)) {
+            return;
+        }
+        System.out.print("# " + name + ": ");
+        for (int i = 0; i < warmup; i++) {
+            blackhole += op.run();
+            System.out.print("w");
+        }
+
+        double[] nanosPerOp = new double[iterations];
+        long allocated = 0;
+        long elapsed = 0;
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        for (int i = 0; i < iterations; i++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            blackhole += op.run();
+            long time = System.nanoTime() - start;
+            allocated += allocatedBytes() - bytesBefore;
+            elapsed += time;
+            nanosPerOp[i] = (double) time / opsPerCall;
+            System.out.print(".");
+        }
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+        System.out.println();
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean);
+        }
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+        String units = "ms/op";
+        double scale = 1e6;
+        if (opsPerCall > 1) {
+            units = "ns/op";
+            scale = 1;
+        }
+        double bytesPerOp = (double) allocated / ((long) iterations * opsPerCall);
+        double mbPerSec = elapsed == 0 ? 0 : allocated / (elapsed / 1e9) / (1024 * 1024);
+        report.add(String.format(Locale.ROOT, "%-40s %5d %8.3f +- %-5.3f %-8s %12.1f %10.1f %5d/%-4d",
+                name, iterations, mean / scale, error / scale, units, bytesPerOp, mbPerSec, gcCount, gcTime));
+    }
+
+    // bytes allocated so far by all live threads, including the fork/join workers
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        long total = 0;
+        for (long bytes : sunThreads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
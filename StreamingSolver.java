@@ -0,0 +1,222 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Enhanced algorithm over a grid that arrives one row at a time and is never held
+ * in memory as a whole.
+ * <p>
+ * No word is longer than maxChars, so no ray reads more than maxChars rows.  The solver
+ * keeps only the last maxChars rows in a ring of reused row buffers.  When row r arrives,
+ * the rays that start on row r and stay level or go up are complete, and so are the rays
+ * going down from row r - maxChars + 1; both are scanned and reported right away.  The
+ * rest of the downward rays are scanned when the input ends.  Peak memory is
+ * columns x maxChars characters, however many rows there are.
+ */
+public class StreamingSolver {
+
+    // directions that only read the start row and rows above it
+    private static final Direction[] UP_AND_LEVEL = {
+            Direction.LEFT_TO_RIGHT, Direction.RIGHT_TO_LEFT, Direction.BOTTOM_UP,
+            Direction.TOP_LEFT, Direction.TOP_RIGHT
+    };
+    // directions that read rows below the start row
+    private static final Direction[] DOWN = {
+            Direction.TOP_DOWN, Direction.BOTTOM_RIGHT, Direction.BOTTOM_LEFT
+    };
+
+    private final WordDictionary dictionary;
+
+    /**
+     * Supplies grid rows in order.  Every row has getColumns() letters.
+     */
+    public interface RowSource {
+
+        int getColumns();
+
+        // copy the next row into row, or return false at the end of the grid
+        boolean readRow(char[] row) throws IOException;
+    }
+
+    public StreamingSolver(WordDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    // solve the whole stream, returning the number of matches sent to sink
+    public long solve(RowSource source, MatchSink sink) throws IOException {
+        int columns = source.getColumns();
+        int window = Math.max(1, dictionary.getMaxChars());
+        char[][] rows = new char[window][columns];           // row r lives in rows[r % window]
+        WordDictionary.Cursor cursor = dictionary.cursor();
+        char[] chars = new char[window];
+        long count = 0;
+
+        int last = -1;                                       // last row read
+        while (source.readRow(rows[(last + 1) % window])) {
+            last++;
+            count += scanRow(rows, window, last, last, UP_AND_LEVEL, cursor, chars, sink);
+            int top = last - window + 1;
+            if (top >= 0) {
+                count += scanRow(rows, window, top, last, DOWN, cursor, chars, sink);
+            }
+        }
+
+        // downward rays from the last rows run off the bottom of the grid
+        for (int row = Math.max(0, last - window + 2); row <= last; row++) {
+            count += scanRow(rows, window, row, last, DOWN, cursor, chars, sink);
+        }
+        return count;
+    }
+
+    // scan every cell of row in the given directions; rows (last - window, last] are available
+    private static long scanRow(char[][] rows, int window, int row, int last, Direction[] directions,
+                                WordDictionary.Cursor cursor, char[] chars, MatchSink sink) {
+        int columns = rows[0].length;
+        int first = Math.max(0, last - window + 1);
+        long count = 0;
+        for (int col = 0; col < columns; col++) {
+            for (Direction direction : directions) {
+                cursor.start();
+                int t = row;
+                int s = col;
+                int length = 0;
+                while (t >= first && t <= last && s >= 0 && s < columns) {
+                    char c = rows[t % window][s];
+                    int result = cursor.advance(c);
+                    if (result == WordDictionary.NOT_PREFIX) {
+                        break;
+                    }
+                    chars[length++] = c;
+                    if (result == WordDictionary.WORD) {
+                        sink.found(chars, length, cursor.wordId(), row, col, direction);
+                        count++;
+                    }
+                    t += direction.dRow;
+                    s += direction.dCol;
+                }
+            }
+        }
+        return count;
+    }
+
+    // rows read from text, one grid row per line; spaces between letters are ignored
+    public static RowSource lines(BufferedReader reader) throws IOException {
+        String first = nextLine(reader);
+        int columns = first == null ? 0 : first.length();
+        return new RowSource() {
+            private String pending = first;
+
+            @Override
+            public int getColumns() {
+                return columns;
+            }
+
+            @Override
+            public boolean readRow(char[] row) throws IOException {
+                String line = pending != null ? pending : nextLine(reader);
+                pending = null;
+                if (line == null) {
+                    return false;
+                }
+                if (line.length() != columns) {
+                    throw new IOException("Grid row has " + line.length() + " letters, expected " + columns);
+                }
+                line.getChars(0, columns, row, 0);
+                return true;
+            }
+        };
+    }
+
+    // next non-blank line with whitespace removed, or null at the end
+    private static String nextLine(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.replaceAll("\\s", "");
+            if (!line.isEmpty()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    // random letters generated row by row, the same for the same seed
+    public static RowSource random(long rowCount, int columns, long seed) {
+        Random rand = new Random(seed);
+        return new RowSource() {
+            private long produced;
+
+            @Override
+            public int getColumns() {
+                return columns;
+            }
+
+            @Override
+            public boolean readRow(char[] row) {
+                if (produced == rowCount) {
+                    return false;
+                }
+                for (int i = 0; i < columns; i++) {
+                    row[i] = (char) (97 + rand.nextInt(26));
+                }
+                produced++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * java StreamingSolver [-rows 1000000] [-columns 200] [-seed 1] [-file grid.txt] [-words]
+     */
+    public static void main(String[] args) throws IOException {
+        long rowCount = 1_000_000;
+        int columns = 200;
+        long seed = 1;
+        String file = null;
+        boolean printWords = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-rows":
+                    rowCount = Long.parseLong(args[++i]);
+                    break;
+                case "-columns":
+                    columns = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-file":
+                    file = args[++i];
+                    break;
+                case "-words":
+                    printWords = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        StreamingSolver solver = new StreamingSolver(MappedDawg.load("dictionary.txt", "dictionary.dawg"));
+        PrintStream out = System.out;
+        MatchSink sink = printWords ? new MatchSink.Printer(out) : new MatchSink.Counter();
+        long startTime = System.nanoTime();
+        long count;
+        if (file != null) {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                count = solver.solve(lines(reader), sink);
+            }
+        } else {
+            count = solver.solve(random(rowCount, columns, seed), sink);
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        out.println();
+        out.println(String.format(Locale.ROOT, "%d words in %.3fs", count, seconds));
+    }
+}
@@ -0,0 +1,63 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+/**
+ * Read-only view of a loaded dictionary, as used by the puzzle solvers.
+ * A prefix is any leading part of a dictionary word, including the word itself.
+ * <p>
+ * Every word has an int id, its position in the sorted word list the dictionary was
+ * loaded from, so results can be counted and compared by id and only turned back into
+ * Strings for output.  Words added later get the next unused ids.
+ */
+public interface WordDictionary {
+
+    // results of Cursor.advance()
+    int NOT_PREFIX = 0;         // no dictionary word starts with the characters so far
+    int PREFIX = 1;             // some word starts with them, but they are not a word
+    int WORD = 2;               // they form a complete word
+
+    int NO_WORD = -1;           // word id of anything that is not a word
+
+    // true if s is a prefix of at least one dictionary word
+    boolean isPrefix(CharSequence s);
+
+    // true if s is a complete dictionary word
+    boolean isWord(CharSequence s);
+
+    // length of the longest dictionary word
+    int getMaxChars();
+
+    // id of the word s, or NO_WORD
+    int wordId(CharSequence s);
+
+    // the word with this id
+    String word(int wordId);
+
+    // every word id is below this
+    int wordIdCount();
+
+    // new lookup cursor; cursors are cheap, but not thread safe, so use one per thread
+    Cursor cursor();
+
+    /**
+     * Stateful lookup that is extended one character at a time, so a scan along a
+     * ray of the grid does one probe per character and never builds a String.
+     */
+    interface Cursor {
+
+        // begin a new lookup at the empty prefix
+        void start();
+
+        // extend the lookup by c; once NOT_PREFIX is returned it stays that way until start()
+        int advance(char c);
+
+        // drop the current lookup; advance() returns NOT_PREFIX until the next start()
+        void reset();
+
+        // number of characters accepted since start()
+        int length();
+
+        // id of the word the characters so far form, or NO_WORD
+        int wordId();
+    }
+}
@@ -0,0 +1,156 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+/**
+ * A dictionary stored as a graph of nodes and labelled edges, which a search can walk
+ * one character at a time and step back from freely, unlike a Cursor.  Every prefix
+ * is a node; following the edges of a word from the root and adding up their ranks
+ * gives the word's id.
+ * <p>
+ * The edges leaving a node are numbered consecutively in label order, ending just
+ * before edgeEnd(node).  Implementations only supply that storage; the lookups, the
+ * id numbering and the cursor are written once here on top of it.
+ */
+public interface WordGraph extends WordDictionary {
+
+    int NO_NODE = -1;
+
+    int root();
+
+    // edge leaving node labelled c, or -1
+    int edge(int node, char c);
+
+    // one past the last edge leaving node
+    int edgeEnd(int node);
+
+    // character on an edge
+    char label(int edge);
+
+    // node an edge leads to
+    int target(int edge);
+
+    // amount an edge adds to the word id
+    int rank(int edge);
+
+    boolean isWordNode(int node);
+
+    // node reached from node by following c, or NO_NODE if no word continues that way
+    default int child(int node, char c) {
+        int e = edge(node, c);
+        return e < 0 ? NO_NODE : target(e);
+    }
+
+    @Override
+    default boolean isPrefix(CharSequence s) {
+        return walk(s) != NO_NODE;
+    }
+
+    @Override
+    default boolean isWord(CharSequence s) {
+        int node = walk(s);
+        return node != NO_NODE && isWordNode(node);
+    }
+
+    @Override
+    default int wordId(CharSequence s) {
+        int node = root();
+        int wordId = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int e = edge(node, s.charAt(i));
+            if (e < 0) {
+                return NO_WORD;
+            }
+            wordId += rank(e);
+            node = target(e);
+        }
+        return isWordNode(node) ? wordId : NO_WORD;
+    }
+
+    @Override
+    default String word(int wordId) {
+        if (wordId < 0 || wordId >= wordIdCount()) {
+            throw new IndexOutOfBoundsException("No word with id " + wordId);
+        }
+        StringBuilder sb = new StringBuilder();
+        int node = root();
+        while (!(wordId == 0 && isWordNode(node))) {
+            // the last edge whose words start at or before wordId
+            int e = edgeEnd(node) - 1;
+            while (rank(e) > wordId) {
+                e--;
+            }
+            wordId -= rank(e);
+            sb.append(label(e));
+            node = target(e);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    default WordDictionary.Cursor cursor() {
+        return new GraphCursor(this);
+    }
+
+    // node reached by s from the root, or NO_NODE
+    private int walk(CharSequence s) {
+        int node = root();
+        for (int i = 0; i < s.length() && node != NO_NODE; i++) {
+            node = child(node, s.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Cursor over any WordGraph: it holds the node reached so far and the word id
+     * summed from the ranks of the edges taken.
+     */
+    final class GraphCursor implements WordDictionary.Cursor {
+        private final WordGraph graph;
+        private int node = NO_NODE;
+        private int length;
+        private int rank;                   // word id so far, summed from the edge ranks
+
+        GraphCursor(WordGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public void start() {
+            node = graph.root();
+            length = 0;
+            rank = 0;
+        }
+
+        @Override
+        public int advance(char c) {
+            if (node == NO_NODE) {
+                return NOT_PREFIX;
+            }
+            int e = graph.edge(node, c);
+            if (e < 0) {
+                node = NO_NODE;
+                return NOT_PREFIX;
+            }
+            node = graph.target(e);
+            rank += graph.rank(e);
+            length++;
+            return graph.isWordNode(node) ? WORD : PREFIX;
+        }
+
+        @Override
+        public void reset() {
+            node = NO_NODE;
+            length = 0;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public int wordId() {
+            return node != NO_NODE && graph.isWordNode(node) ? rank : NO_WORD;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The words of a dictionary file, read in parallel, each with the length of the prefix
+ * it shares with the word before it.
+ * <p>
+ * The file is read whole through a FileChannel and cut into chunks that end on line
+ * breaks.  Each chunk is decoded, split into lines and compared line by line on its own
+ * thread; only the first word of each chunk is compared with the last word of the chunk
+ * before, once all chunks are done.  Blank lines are skipped and "\r\n" endings work.
+ * <p>
+ * In a sorted file most words share a long prefix with the word before (a, aah, aahed,
+ * aahing, ...).  A builder that stores every prefix of every word only needs to add the
+ * prefixes longer than commonPrefix(i), since the shorter ones came with an earlier word.
+ */
+public class WordList {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+
+    private final String[] words;
+    private final int[] common;                 // characters shared with the previous word
+    private final int maxChars;
+
+    private WordList(String[] words, int[] common) {
+        this.words = words;
+        this.common = common;
+        int longest = 0;
+        for (String word : words) {
+            longest = Math.max(longest, word.length());
+        }
+        maxChars = longest;
+    }
+
+    public static WordList read(String fileName) throws IOException {
+        return read(Paths.get(fileName), ForkJoinPool.commonPool());
+    }
+
+    public static WordList read(Path file, ForkJoinPool pool) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Word list too large: " + file);
+            }
+            bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // read the whole file
+            }
+            bytes.flip();
+        }
+
+        // chunk c is bytes [bounds[c], bounds[c + 1]), each ending just after a '\n' or at the end
+        int limit = bytes.limit();
+        int chunks = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, limit / MIN_CHUNK_BYTES));
+        int[] bounds = new int[chunks + 1];
+        for (int c = 1; c < chunks; c++) {
+            int at = Math.max(bounds[c - 1], (int) ((long) limit * c / chunks));
+            while (at < limit && bytes.get(at) != '\n') {
+                at++;
+            }
+            bounds[c] = Math.min(limit, at + 1);
+        }
+        bounds[chunks] = limit;
+
+        String[][] chunkWords = new String[chunks][];
+        int[][] chunkCommon = new int[chunks][];
+        try {
+            pool.invoke(new ChunkTask(bytes, bounds, chunkWords, chunkCommon, 0, chunks));
+        } catch (UncheckedIOException e) {
+            throw new IOException("Word list is not valid UTF-8: " + file, e.getCause());
+        }
+
+        // join the chunks, comparing each chunk's first word with the word before it
+        int total = 0;
+        for (String[] w : chunkWords) {
+            total += w.length;
+        }
+        String[] words = new String[total];
+        int[] common = new int[total];
+        int n = 0;
+        for (int c = 0; c < chunks; c++) {
+            System.arraycopy(chunkWords[c], 0, words, n, chunkWords[c].length);
+            System.arraycopy(chunkCommon[c], 0, common, n, chunkCommon[c].length);
+            if (n > 0 && chunkWords[c].length > 0) {
+                common[n] = commonPrefix(words[n - 1], words[n]);
+            }
+            n += chunkWords[c].length;
+        }
+        return new WordList(words, common);
+    }
+
+    // parses chunks [fromChunk, toChunk)
+    @SuppressWarnings("serial")
+    private static class ChunkTask extends RecursiveAction {
+        private final ByteBuffer bytes;
+        private final int[] bounds;
+        private final String[][] chunkWords;
+        private final int[][] chunkCommon;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(ByteBuffer bytes, int[] bounds, String[][] chunkWords, int[][] chunkCommon,
+                  int fromChunk, int toChunk) {
+            this.bytes = bytes;
+            this.bounds = bounds;
+            this.chunkWords = chunkWords;
+            this.chunkCommon = chunkCommon;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(bytes, bounds, chunkWords, chunkCommon, fromChunk, mid),
+                        new ChunkTask(bytes, bounds, chunkWords, chunkCommon, mid, toChunk));
+                return;
+            }
+            ByteBuffer chunk = bytes.duplicate();
+            chunk.limit(bounds[fromChunk + 1]).position(bounds[fromChunk]);
+            CharBuffer chars;
+            try {
+                chars = StandardCharsets.UTF_8.newDecoder().decode(chunk);
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException(e);
+            }
+            char[] text = chars.array();
+            int length = chars.limit();
+
+            // count lines first so the arrays are allocated once
+            int lines = 1;
+            for (int i = 0; i < length; i++) {
+                if (text[i] == '\n') {
+                    lines++;
+                }
+            }
+            String[] words = new String[lines];
+            int[] common = new int[lines];
+            int n = 0;
+            int start = 0;
+            while (start < length) {
+                int end = start;
+                while (end < length && text[end] != '\n') {
+                    end++;
+                }
+                int next = end + 1;
+                if (end > start && text[end - 1] == '\r') {
+                    end--;
+                }
+                if (end > start) {
+                    words[n] = new String(text, start, end - start);
+                    if (n > 0) {
+                        common[n] = commonPrefix(words[n - 1], words[n]);
+                    }
+                    n++;
+                }
+                start = next;
+            }
+            chunkWords[fromChunk] = Arrays.copyOf(words, n);
+            chunkCommon[fromChunk] = Arrays.copyOf(common, n);
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int limit = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limit && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public String get(int i) {
+        return words[i];
+    }
+
+    // number of leading characters word i shares with word i - 1; 0 for the first word
+    public int commonPrefix(int i) {
+        return common[i];
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+}
@@ -14,17 +14,37 @@ public class WordPuzzle {
     }
 
     public WordPuzzle(int rows, int columns) {
+        this(rows, columns, new Random());
+    }
+
+    // the same seed always gives the same puzzle, though not the one PuzzleGenerator gives for it
+    public WordPuzzle(int rows, int columns, long seed) {
+        this(rows, columns, new Random(seed));
+    }
+
+    // puzzle over an existing grid of letters; the array is used as is, not copied
+    public WordPuzzle(char[][] grid) {
+        rows = grid.length;
+        columns = rows == 0 ? 0 : grid[0].length;
+        for (char[] row : grid) {
+            if (row.length != columns) {
+                throw new IllegalArgumentException("Puzzle rows must all be the same length");
+            }
+        }
+        puzzle = grid;
+    }
+
+    private WordPuzzle(int rows, int columns, Random rand) {
         this.rows = rows;
         this.columns = columns;
         puzzle = new char[rows][columns];
-        fillPuzzle();
+        fillPuzzle(rand);
     }
 
-    private void fillPuzzle() {
-        Random rand = new Random();
+    private void fillPuzzle(Random rand) {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                puzzle[i][j] = (char) (97 + rand.nextInt(25));
+                puzzle[i][j] = (char) (97 + rand.nextInt(26));
             }
         }
     }
@@ -45,6 +65,11 @@ public class WordPuzzle {
         return puzzle[row][column];
     }
 
+    // change one letter; an IncrementalSolver over this puzzle should be told through its own setChar()
+    public void setChar(int row, int column, char c) {
+        puzzle[row][column] = c;
+    }
+
     public int getRows() {
         return rows;
     }
@@ -0,0 +1,110 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Which dictionary words were found and how often, kept by word id.
+ * <p>
+ * A BitSet holds the distinct words and an int array the count of each, so adding a
+ * match is two array writes and never touches its characters.  Tallies from different
+ * threads or puzzles are combined with merge(), and words are only turned back into
+ * Strings, through the dictionary, when they are read out.  Like every MatchSink, one
+ * tally belongs to one thread; merge per-thread tallies once they are finished.
+ */
+public class WordTally implements MatchSink {
+
+    private final WordDictionary dictionary;
+    private final BitSet seen;
+    private int[] counts;
+    private long total;
+
+    public WordTally(WordDictionary dictionary) {
+        this.dictionary = dictionary;
+        seen = new BitSet(dictionary.wordIdCount());
+        counts = new int[dictionary.wordIdCount()];
+    }
+
+    @Override
+    public void found(char[] chars, int length, int wordId, int row, int column, Direction direction) {
+        add(wordId);
+    }
+
+    public void add(int wordId) {
+        add(wordId, 1);
+    }
+
+    public void add(int wordId, int times) {
+        if (wordId == WordDictionary.NO_WORD) {
+            throw new IllegalArgumentException("Match has no word id");
+        }
+        if (wordId >= counts.length) {          // the dictionary has grown since this tally was made
+            counts = Arrays.copyOf(counts, Math.max(wordId + 1, counts.length * 2));
+        }
+        counts[wordId] += times;
+        seen.set(wordId);
+        total += times;
+    }
+
+    // add everything in other to this tally
+    public void merge(WordTally other) {
+        for (int id = other.seen.nextSetBit(0); id >= 0; id = other.seen.nextSetBit(id + 1)) {
+            add(id, other.counts[id]);
+        }
+    }
+
+    public boolean contains(int wordId) {
+        return seen.get(wordId);
+    }
+
+    public int count(int wordId) {
+        return wordId < counts.length ? counts[wordId] : 0;
+    }
+
+    // number of different words
+    public int distinctCount() {
+        return seen.cardinality();
+    }
+
+    // number of matches, counting repeats
+    public long totalCount() {
+        return total;
+    }
+
+    // the distinct words as a set of ids; changing it does not change the tally
+    public BitSet toBitSet() {
+        return (BitSet) seen.clone();
+    }
+
+    // the distinct words in id order
+    public List<String> getWords() {
+        List<String> words = new ArrayList<>(distinctCount());
+        for (int id = seen.nextSetBit(0); id >= 0; id = seen.nextSetBit(id + 1)) {
+            words.add(dictionary.word(id));
+        }
+        return words;
+    }
+
+    // ids of the n most frequent words, most frequent first, ties in id order
+    public int[] mostFrequent(int n) {
+        Integer[] ids = new Integer[distinctCount()];
+        int i = 0;
+        for (int id = seen.nextSetBit(0); id >= 0; id = seen.nextSetBit(id + 1)) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids, (a, b) -> counts[a] != counts[b]
+                ? Integer.compare(counts[b], counts[a]) : Integer.compare(a, b));
+        int[] top = new int[Math.min(n, ids.length)];
+        for (i = 0; i < top.length; i++) {
+            top[i] = ids[i];
+        }
+        return top;
+    }
+
+    public WordDictionary getDictionary() {
+        return dictionary;
+    }
+}
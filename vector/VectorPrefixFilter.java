@@ -0,0 +1,119 @@
+// Levon Kalantarian
+// Word Puzzle Solver
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * PrefixFilter's packed-row pass on the Vector API, one strip of cells per step
+ * instead of one cell.
+ * <p>
+ * For each direction the first, second and third letters of a strip of rays are just
+ * three runs of the packed array, a step apart, so each is a single vector load.  The
+ * bytes are widened to int lanes, mapped to filter symbols with compares and blends,
+ * combined into table indices, and the table entries fetched with one gather; the
+ * lanes whose entry has the wanted bit get the direction's bit in their mask.
+ * <p>
+ * A vector load always reads all three letters, even past the border where the scalar
+ * loop stops, so the table is copied with every "second letter off the grid" entry set
+ * to the scalar loop's answer whatever the third letter.  Two rows at the top and
+ * bottom, where the third letter would be outside the array, and the columns left over
+ * after the last whole strip go through the scalar loop.
+ * <p>
+ * jdk.incubator.vector is not in the default module graph, so this file is kept out
+ * of the main build:
+ * <pre>
+ *   javac -cp . -d . --add-modules jdk.incubator.vector vector/VectorPrefixFilter.java
+ *   java --add-modules jdk.incubator.vector SolverBenchmark -sizes 1000 -filter prefixFilter
+ * </pre>
+ */
+public class VectorPrefixFilter implements PrefixFilter.RowPass {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = INTS.length();
+
+    // bytes loaded per strip; a 64-bit vector is the smallest, so with 4 int lanes only the first half is used
+    private static final VectorSpecies<Byte> BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, LANES * 8)));
+    private static final VectorMask<Byte> STRIP = BYTES.indexInRange(0, LANES);
+    private static final boolean WHOLE = BYTES.length() == LANES;
+
+    private static final int SYMBOLS = PrefixFilter.SYMBOLS;
+    private static final int APOSTROPHE = 26;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final PrefixFilter filter;
+    private final int[] table;                  // the filter's table widened for gathers
+
+    public VectorPrefixFilter(PrefixFilter filter) {
+        this.filter = filter;
+        byte[] viable = filter.table();
+        table = new int[viable.length];
+        for (int first = 0; first < SYMBOLS; first++) {
+            for (int second = 0; second < SYMBOLS; second++) {
+                for (int third = 0; third < SYMBOLS; third++) {
+                    int scalarThird = second == PrefixFilter.END ? PrefixFilter.END : third;
+                    table[(first * SYMBOLS + second) * SYMBOLS + third] =
+                            viable[(first * SYMBOLS + second) * SYMBOLS + scalarThird];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void viableDirections(PackedGrid grid, int row, int bit, byte[] masks) {
+        int rows = grid.getRows();
+        int columns = grid.getColumns();
+        if (row < 2 || row >= rows - 2) {
+            filter.viableDirections(grid, row, bit, masks, 0, columns);
+            return;
+        }
+        byte[] cells = grid.cells();
+        int[] steps = new int[DIRECTIONS.length];
+        for (Direction direction : DIRECTIONS) {
+            steps[direction.ordinal()] = grid.step(direction);
+        }
+        int shift = Integer.numberOfTrailingZeros(bit);     // moves the wanted bit of an entry to bit 0
+        int[] indices = new int[LANES];
+        int stripEnd = columns - columns % LANES;
+        int start = grid.index(row, 0);
+        for (int col = 0; col < stripEnd; col += LANES, start += LANES) {
+            IntVector firsts = symbols(cells, start).mul(SYMBOLS * SYMBOLS);
+            IntVector mask = IntVector.zero(INTS);
+            for (int d = 0; d < steps.length; d++) {
+                int step = steps[d];
+                IntVector index = symbols(cells, start + step).mul(SYMBOLS)
+                        .add(firsts)
+                        .add(symbols(cells, start + 2 * step));
+                index.intoArray(indices, 0);
+                IntVector entries = IntVector.fromArray(INTS, table, 0, indices, 0);
+                // shifts rather than an OR under a compare mask, which JDK 17's C2 miscompiles on AVX-512
+                mask = mask.or(entries.lanewise(VectorOperators.LSHR, shift).and(1)
+                        .lanewise(VectorOperators.LSHL, d));
+            }
+            ByteVector packed = (ByteVector) mask.convertShape(VectorOperators.I2B, BYTES, 0);
+            if (WHOLE) {
+                packed.intoArray(masks, col);
+            } else {
+                packed.intoArray(masks, col, STRIP);
+            }
+        }
+        filter.viableDirections(grid, row, bit, masks, stripEnd, columns);
+    }
+
+    // filter symbols of the LANES cells from index i: letters, the apostrophe, BORDER as END, anything else OTHER
+    private static IntVector symbols(byte[] cells, int i) {
+        ByteVector bytes = WHOLE ? ByteVector.fromArray(BYTES, cells, i) : ByteVector.fromArray(BYTES, cells, i, STRIP);
+        IntVector c = (IntVector) bytes.convertShape(VectorOperators.B2I, INTS, 0);
+        VectorMask<Integer> letter = c.compare(VectorOperators.GE, 'a').and(c.compare(VectorOperators.LE, 'z'));
+        return IntVector.broadcast(INTS, PrefixFilter.OTHER)
+                .blend(PrefixFilter.END, c.compare(VectorOperators.EQ, PackedGrid.BORDER))
+                .blend(APOSTROPHE, c.compare(VectorOperators.EQ, '\''))
+                .blend(c.sub('a'), letter);
+    }
+}